@@ -0,0 +1,52 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import paintingcanvas.InternalCanvas;
+import paintingcanvas.animation.Animation;
+import paintingcanvas.animation.Easing;
+import paintingcanvas.drawable.Circle;
+import paintingcanvas.misc.TimeUnit;
+
+import java.awt.*;
+
+/**
+ * Updating {@link #tweens} running animations for one frame: half movement, a quarter color and a quarter rotation.
+ * The elements aren't on the canvas, so nothing gets rendered.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimationBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int tweens;
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    static final int FRAMES = 100_000;
+    int frame = 0;
+
+    @Setup
+    public void setup() {
+        Scenes.canvas(false);
+        // the benchmark cycles through the frames of the animations, so none of them ever finish
+        var duration = FRAMES;
+        for (var i = 0; i < tweens; i++) {
+            var circle = new Circle(i % Scenes.WIDTH, i % Scenes.HEIGHT, 5, Color.RED);
+            Animation animation;
+            if (i % 2 == 0) animation = Animation.moveTo(i % 300, i % 200).easing(Easing.easeInOut(2));
+            else if (i % 4 == 1) animation = Animation.colorTo(0x00FF80);
+            else animation = Animation.rotateTo(360).easing(Easing.easeOutBack());
+            circle.animate().with(animation, duration, TimeUnit.Frames);
+        }
+    }
+
+    @Benchmark
+    public int update() {
+        // jump around, so colors and positions really change every time
+        InternalCanvas.animations.update(frame = (frame + 997) % FRAMES, parallel);
+        return InternalCanvas.animations.size();
+    }
+}
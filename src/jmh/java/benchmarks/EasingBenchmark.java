@@ -0,0 +1,69 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import paintingcanvas.animation.Easing;
+import paintingcanvas.animation.TabulatedEasing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the analytic easings with {@link TabulatedEasing tables} of them.
+ * Each invocation eases 1024 evenly spread values, like 1024 animations on the same frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EasingBenchmark {
+    @Param({"easeInOut", "easeOutBack", "easeInOutElastic", "easeInOutBounce"})
+    public String easing;
+    @Param({"analytic", "linear", "cubic"})
+    public String mode;
+    @Param({"0.0001"})
+    public double maxError;
+
+    Easing ease;
+    double[] progress;
+
+    static Easing named(String name) {
+        switch (name) {
+            case "easeInOut":
+                return Easing.easeInOut(3);
+            case "easeOutBack":
+                return Easing.easeOutBack();
+            case "easeInOutElastic":
+                return Easing.easeInOutElastic();
+            case "easeInOutBounce":
+                return Easing.easeInOutBounce();
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        var analytic = named(easing);
+        switch (mode) {
+            case "linear":
+                ease = TabulatedEasing.of(analytic, maxError, TabulatedEasing.Interpolation.Linear);
+                break;
+            case "cubic":
+                ease = TabulatedEasing.of(analytic, maxError, TabulatedEasing.Interpolation.Cubic);
+                break;
+            default:
+                ease = analytic;
+        }
+
+        progress = new double[1024];
+        for (var i = 0; i < progress.length; i++) progress[i] = (i * 0.61803398875) % 1;
+    }
+
+    @Benchmark
+    public double ease() {
+        var sum = 0.0;
+        for (var t : progress) sum += ease.ease(t);
+        return sum;
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import paintingcanvas.drawable.*;
+import paintingcanvas.drawable.Polygon;
+import paintingcanvas.drawable.Rectangle;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving, measuring and drawing a single element of each {@link #kind}, over and over. Run it with the allocation
+ * profiler ({@code -PjmhArgs="ElementBenchmark -prof gc"}): {@code gc.alloc.rate.norm} is how many bytes each frame
+ * of the element allocates, which is none for the elements themselves. Whatever is left comes from Java2D filling
+ * the shape (ovals, and polygons that aren't drawn pixel for pixel).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElementBenchmark {
+    @Param({"Rectangle", "Square", "Circle", "Ellipse", "Triangle", "Line", "Polygon", "Path", "Text"})
+    public String kind;
+    @Param({"0", "30"})
+    public int rotation;
+
+    Positionable<?> element;
+    BufferedImage image;
+    Graphics2D g;
+    AffineTransform base;
+    int frame = 0;
+
+    @Setup
+    public void setup() {
+        Scenes.canvas(false);
+        switch (kind) {
+            case "Rectangle":
+                element = new Rectangle(100, 100, 60, 40, Color.RED).setOutline(2, Color.BLACK);
+                break;
+            case "Square":
+                element = new Square(100, 100, 40, Color.RED);
+                break;
+            case "Circle":
+                element = new Circle(100, 100, 20, Color.RED);
+                break;
+            case "Ellipse":
+                element = new Ellipse(100, 100, 60, 40, Color.RED);
+                break;
+            case "Triangle":
+                element = new Triangle(100, 100, 60, 40, Color.RED);
+                break;
+            case "Line":
+                element = new Line(100, 100, 160, 140, Color.RED).setThickness(3);
+                break;
+            case "Polygon":
+                element = new Polygon(100, 100, new int[]{0, 40, 50, 10}, new int[]{0, 0, 30, 40}).setColor(Color.RED);
+                break;
+            case "Path":
+                element = new Path(Color.RED).cursorTo(0, 0).quadTo(20, 40, 40, 0).lineTo(60, 20);
+                break;
+            default:
+                element = new Text(100, 100, "Hello World", Color.BLACK);
+                break;
+        }
+        element.setRotation(rotation);
+        image = new BufferedImage(Scenes.WIDTH, Scenes.HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        base = g.getTransform();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public java.awt.Rectangle frame() {
+        frame++;
+        // like an animation, which is already inside the frame's atomic block
+        element.internalSetPos(100 + frame % 200, 100);
+        var drawable = (Drawable<?>) element;
+        // like the renderer, which knows the transform of g
+        drawable.internalRender(g, base);
+        return drawable.internalUpdateBounds();
+    }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import paintingcanvas.InternalCanvas;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing a scene of {@link #shapes} mixed shapes.
+ * <ul>
+ *     <li>{@link #drawAll()}: just {@code ElementContainer.foreach} and {@code render} on every element</li>
+ *     <li>{@link #frame()}: a whole headless frame, with culling, the frame buffers and the render lifecycles</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    @Param({"1000", "10000"})
+    public int shapes;
+
+    BufferedImage image;
+    Graphics2D g;
+
+    @Setup
+    public void setup() {
+        Scenes.canvas(true);
+        Scenes.shapes(shapes);
+        image = new BufferedImage(Scenes.WIDTH, Scenes.HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        // the first frame works out all the bounds
+        InternalCanvas.headless.nextFrame();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage drawAll() {
+        InternalCanvas.elements.foreach(e -> e.render(g));
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage frame() {
+        InternalCanvas.headless.nextFrame();
+        return InternalCanvas.renderer.image;
+    }
+}
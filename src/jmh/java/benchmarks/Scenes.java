@@ -0,0 +1,71 @@
+package benchmarks;
+
+import paintingcanvas.InternalCanvas;
+import paintingcanvas.canvas.Canvas;
+import paintingcanvas.canvas.CanvasOptions;
+import paintingcanvas.drawable.*;
+import paintingcanvas.drawable.Polygon;
+import paintingcanvas.drawable.Rectangle;
+
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * Shared setup for the benchmarks.
+ * There can only be one canvas per JVM, which is fine because JMH forks a new one for every set of parameters.
+ */
+class Scenes {
+    static final int WIDTH = 1280;
+    static final int HEIGHT = 720;
+
+    /**
+     * Make a headless canvas that only renders when {@link paintingcanvas.canvas.HeadlessRenderer#nextFrame()} is
+     * called, so nothing else is running while the benchmark is measured.
+     *
+     * @param autoAdd whether new elements should go on the canvas
+     */
+    static void canvas(boolean autoAdd) {
+        if (InternalCanvas.initialized) return;
+        var options = new CanvasOptions().headless(true).manualFrames(true).autoCenter(false).autoAdd(autoAdd);
+        new Canvas(WIDTH, HEIGHT, "Benchmark", options);
+    }
+
+    /**
+     * Add {@code count} shapes of every kind (except text) scattered around the canvas, with a fixed seed so every
+     * run gets the same scene.
+     *
+     * @param count how many shapes to add
+     */
+    static void shapes(int count) {
+        var r = new Random(42);
+        for (var i = 0; i < count; i++) {
+            var x = r.nextInt(WIDTH);
+            var y = r.nextInt(HEIGHT);
+            var color = new Color(r.nextInt(256), r.nextInt(256), r.nextInt(256), 100 + r.nextInt(156));
+            switch (i % 7) {
+                case 0:
+                    new Circle(x, y, 5 + r.nextInt(30), color).setOutline(1 + r.nextInt(3));
+                    break;
+                case 1:
+                    new Rectangle(x, y, 10 + r.nextInt(60), 10 + r.nextInt(40), color).setRotation(r.nextInt(360));
+                    break;
+                case 2:
+                    new Ellipse(x, y, 10 + r.nextInt(60), 10 + r.nextInt(40), color).setOutline(2, Color.BLACK);
+                    break;
+                case 3:
+                    new Square(x, y, 10 + r.nextInt(40), color).setRotation(r.nextInt(360));
+                    break;
+                case 4:
+                    new Triangle(x, y, 10 + r.nextInt(60), 10 + r.nextInt(40), color).setRotation(r.nextInt(360));
+                    break;
+                case 5:
+                    new Line(x, y, x + r.nextInt(100) - 50, y + r.nextInt(100) - 50, color).setThickness(1 + r.nextInt(4));
+                    break;
+                default:
+                    var p = new Polygon(x, y).setColor(color);
+                    for (var j = 0; j < 5; j++) p.point(r.nextInt(60) - 30, r.nextInt(60) - 30);
+                    break;
+            }
+        }
+    }
+}
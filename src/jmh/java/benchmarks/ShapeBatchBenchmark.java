@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import paintingcanvas.drawable.Rectangle;
+import paintingcanvas.drawable.ShapeBatch;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving and drawing a grid of {@link #cells} squares, either as separate {@link Rectangle}s or as one
+ * {@link ShapeBatch}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShapeBatchBenchmark {
+    static final int SIZE = 10;
+
+    @Param({"2500", "10000"})
+    public int cells;
+    @Param({"false", "true"})
+    public boolean batched;
+
+    Rectangle[] rects;
+    ShapeBatch batch;
+    int[] xs, ys;
+    BufferedImage image;
+    Graphics2D g;
+    int frame = 0;
+
+    @Setup
+    public void setup() {
+        Scenes.canvas(false);
+        var columns = Scenes.WIDTH / SIZE;
+        rects = new Rectangle[cells];
+        batch = new ShapeBatch(ShapeBatch.Kind.Rectangle);
+        for (var i = 0; i < cells; i++) {
+            var color = Color.getHSBColor(i / (float) cells, 1, 1);
+            var x = i % columns * SIZE + SIZE / 2;
+            var y = i / columns * SIZE + SIZE / 2;
+            if (batched) batch.add(x, y, SIZE, SIZE, color);
+            else rects[i] = new Rectangle(x, y, SIZE, SIZE, color);
+        }
+        xs = new int[cells];
+        ys = new int[cells];
+        image = new BufferedImage(Scenes.WIDTH, Scenes.HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage moveAndDraw() {
+        frame++;
+        var columns = Scenes.WIDTH / SIZE;
+        for (var i = 0; i < cells; i++) {
+            xs[i] = (i + frame) % columns * SIZE + SIZE / 2;
+            ys[i] = i / columns * SIZE + SIZE / 2;
+        }
+        if (batched) {
+            batch.setPositions(xs, ys);
+            batch.render(g);
+        } else {
+            for (var i = 0; i < cells; i++) rects[i].setPos(xs[i], ys[i]);
+            for (var rect : rects) rect.render(g);
+        }
+        return image;
+    }
+}
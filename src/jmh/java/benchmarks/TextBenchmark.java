@@ -0,0 +1,57 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import paintingcanvas.drawable.Text;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing {@link #texts} text elements, either with the same text every time or with new text on every frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextBenchmark {
+    @Param({"100", "1000"})
+    public int texts;
+    @Param({"false", "true"})
+    public boolean changing;
+
+    Text[] elements;
+    BufferedImage image;
+    Graphics2D g;
+    int frame = 0;
+
+    @Setup
+    public void setup() {
+        Scenes.canvas(false);
+        elements = new Text[texts];
+        for (var i = 0; i < texts; i++) {
+            elements[i] = new Text(i * 37 % Scenes.WIDTH, i * 23 % Scenes.HEIGHT, "Label " + i, Color.BLACK);
+            elements[i].setFontSize(12 + i % 20);
+        }
+        image = new BufferedImage(Scenes.WIDTH, Scenes.HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage draw() {
+        frame++;
+        for (var text : elements) {
+            if (changing) text.setText("Frame " + frame);
+            text.render(g);
+        }
+        return image;
+    }
+}
@@ -1,9 +1,13 @@
 package paintingcanvas;
 
-import paintingcanvas.animation.Animation;
+import paintingcanvas.animation.AnimationStore;
+import paintingcanvas.canvas.Batch;
 import paintingcanvas.canvas.Canvas;
 import paintingcanvas.canvas.CanvasOptions;
 import paintingcanvas.canvas.CanvasPanel;
+import paintingcanvas.canvas.FrameRenderer;
+import paintingcanvas.canvas.FrameScheduler;
+import paintingcanvas.canvas.HeadlessRenderer;
 import paintingcanvas.canvas.RenderLifecycle;
 import paintingcanvas.misc.ElementContainer;
 import paintingcanvas.misc.Tuple;
@@ -14,7 +18,9 @@ import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * <p>
@@ -30,10 +36,6 @@ import java.util.Vector;
  * </p>
  */
 public class InternalCanvas {
-    /**
-     * Sync with drawables: Use when modifying a drawable
-     */
-    public static final Object drawableSync = new Object();
     /**
      * Sync with animations: Notifies on animation finish
      */
@@ -49,7 +51,16 @@ public class InternalCanvas {
     /**
      * the list of animations that are currently running
      */
-    public static final List<Animation> animations = new Vector<>();
+    public static final AnimationStore animations = new AnimationStore();
+    /**
+     * Batches of changes waiting to be applied at the start of the next frame, see {@link Canvas#batch()}
+     */
+    public static final Queue<Batch> batches = new ConcurrentLinkedQueue<>();
+    /**
+     * Changes from other threads (like images that finished loading) waiting to be applied at the start of the next
+     * frame, in the same atomic block as the batches
+     */
+    public static final Queue<Runnable> frameTasks = new ConcurrentLinkedQueue<>();
     /**
      * The current frame
      */
@@ -82,6 +93,11 @@ public class InternalCanvas {
      * The list of mouse clicked events that have been fired
      */
     public static final Vector<Tuple<MouseEvent, Integer>> mouseClickEvents = new Vector<>();
+    /**
+     * The first left click in {@link #mouseClickEvents}, or {@code null}. It's worked out once a frame, so checking
+     * whether something was clicked doesn't have to go through the events every time.
+     */
+    public static volatile MouseEvent leftClick = null;
     /**
      * A set of keys that are currently pressed down.
      */
@@ -94,6 +110,20 @@ public class InternalCanvas {
      * A CanvasComponent, which handles all the rendering n stuff
      */
     public static CanvasPanel panel = null;
+    /**
+     * Renders the frames, for both the {@link CanvasPanel} and the {@link HeadlessRenderer}
+     */
+    public static FrameRenderer renderer = null;
+    /**
+     * Steps frames when running without a window, {@code null} otherwise.
+     * See {@link CanvasOptions#headless(boolean)}
+     */
+    public static HeadlessRenderer headless = null;
+    /**
+     * Decides when frames happen, and keeps track of the ones that were late.
+     * {@code null} with {@link CanvasOptions#manualFrames(boolean)}
+     */
+    public static FrameScheduler scheduler = null;
 
     public static Canvas canvas = null;
 }
@@ -0,0 +1,258 @@
+package paintingcanvas.animation;
+
+import paintingcanvas.drawable.Colorable;
+import paintingcanvas.drawable.Drawable;
+import paintingcanvas.drawable.Outlineable;
+import paintingcanvas.drawable.Positionable;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Holds all the running animations, see {@link paintingcanvas.InternalCanvas#animations}.
+ * </p>
+ * <p>
+ * The built-in animations ({@link MovementAnimation}, {@link ColorAnimation}, {@link RotationAnimation} and
+ * {@link OpacityAnimation}) aren't kept around as objects. When one is added, its start and end values are copied into
+ * a row of plain arrays (one array per field), and updating them is just a loop over those arrays. Anything else, like
+ * your own subclasses of {@link Animation}, gets a row that points back to the object, and is updated with
+ * {@link Animation#update(int)} as usual.
+ * </p>
+ * <p>
+ * Animations are updated in the order they were added, so if two of them change the same thing on the same frame the
+ * newer one wins. Finished animations are dropped in one pass at the end of each update.
+ * </p>
+ * <p>
+ * An update happens in two steps. First every built-in animation works out its eased values into {@link #values},
+ * which only depends on the row itself, so with lots of animations the rows are split up across a
+ * {@link ForkJoinPool}. Then the values are applied to the elements one row at a time, in order. This means the
+ * result is exactly the same whether the first step ran in parallel or not (as long as your {@link Easing Easings}
+ * don't have side effects).
+ * </p>
+ */
+public class AnimationStore {
+    static final byte CUSTOM = 0;
+    static final byte MOVE = 1;
+    static final byte COLOR = 2;
+    static final byte ROTATE = 3;
+    static final byte OPACITY = 4;
+    // how many values each row has for the start and end of the animation
+    static final int STRIDE = 4;
+    // the least animations it takes to bother splitting the work up, and how many each task gets
+    static final int PARALLEL_THRESHOLD = 8192;
+    static final int CHUNK = 2048;
+
+    byte[] kind = new byte[16];
+    Drawable<?>[] target = new Drawable<?>[16];
+    Animation[] custom = new Animation[16];
+    Easing[] easing = new Easing[16];
+    int[] startFrame = new int[16];
+    int[] duration = new int[16];
+    double[] from = new double[16 * STRIDE];
+    double[] to = new double[16 * STRIDE];
+    // the eased values for the current frame
+    double[] values = new double[16 * STRIDE];
+    int size = 0;
+
+    /**
+     * Start running an animation. It needs to have been set up for its drawable already.
+     *
+     * @param animation the animation
+     */
+    public synchronized void add(Animation animation) {
+        if (size == kind.length) grow();
+        var i = size++;
+        var type = animation.getClass();
+        target[i] = animation.drawable;
+        custom[i] = null;
+        easing[i] = animation.easing;
+        startFrame[i] = animation.startFrame;
+        duration[i] = animation.duration;
+
+        var f = i * STRIDE;
+        if (type == MovementAnimation.class) {
+            var a = (MovementAnimation) animation;
+            kind[i] = MOVE;
+            from[f] = a.start.x;
+            from[f + 1] = a.start.y;
+            to[f] = a.end.x;
+            to[f + 1] = a.end.y;
+        } else if (type == RotationAnimation.class) {
+            var a = (RotationAnimation) animation;
+            kind[i] = ROTATE;
+            from[f] = a.start;
+            to[f] = a.end;
+        } else if (type == ColorAnimation.class) {
+            var a = (ColorAnimation) animation;
+            kind[i] = COLOR;
+            from[f] = a.start >>> 16 & 0xff;
+            from[f + 1] = a.start >>> 8 & 0xff;
+            from[f + 2] = a.start & 0xff;
+            from[f + 3] = a.start >>> 24;
+            to[f] = a.end >>> 16 & 0xff;
+            to[f + 1] = a.end >>> 8 & 0xff;
+            to[f + 2] = a.end & 0xff;
+            to[f + 3] = a.end >>> 24;
+        } else if (type == OpacityAnimation.class) {
+            var a = (OpacityAnimation) animation;
+            kind[i] = OPACITY;
+            from[f] = a.start;
+            from[f + 1] = a.outlineStart;
+            to[f] = a.end;
+            to[f + 1] = a.end;
+        } else {
+            kind[i] = CUSTOM;
+            custom[i] = animation;
+        }
+    }
+
+    void grow() {
+        var capacity = kind.length * 2;
+        kind = Arrays.copyOf(kind, capacity);
+        target = Arrays.copyOf(target, capacity);
+        custom = Arrays.copyOf(custom, capacity);
+        easing = Arrays.copyOf(easing, capacity);
+        startFrame = Arrays.copyOf(startFrame, capacity);
+        duration = Arrays.copyOf(duration, capacity);
+        from = Arrays.copyOf(from, capacity * STRIDE);
+        to = Arrays.copyOf(to, capacity * STRIDE);
+        values = Arrays.copyOf(values, capacity * STRIDE);
+    }
+
+    /**
+     * @return the number of running animations
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return whether there are no running animations
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Update every animation for {@code frame}, and drop the ones that have finished.
+     *
+     * @param frame the current frame
+     */
+    public void update(int frame) {
+        update(frame, false);
+    }
+
+    /**
+     * Update every animation for {@code frame}, and drop the ones that have finished.
+     *
+     * @param frame    the current frame
+     * @param parallel whether the easing can be split up across threads when there are lots of animations
+     */
+    public synchronized void update(int frame, boolean parallel) {
+        if (parallel && size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1)
+            ForkJoinPool.commonPool().invoke(new EaseTask(frame, 0, size));
+        else ease(frame, 0, size);
+
+        // custom animations can start new ones while they update, which haven't been eased yet
+        var eased = size;
+        var keep = 0;
+        for (var i = 0; i < size; i++) {
+            if (i >= eased) ease(frame, i, i + 1);
+            if (frame > startFrame[i] + duration[i]) continue;
+            if (frame >= startFrame[i]) {
+                if (kind[i] == CUSTOM) custom[i].update(frame);
+                else apply(i);
+            }
+            if (keep != i) move(i, keep);
+            keep++;
+        }
+
+        // let go of the finished animations' drawables
+        Arrays.fill(target, keep, size, null);
+        Arrays.fill(custom, keep, size, null);
+        Arrays.fill(easing, keep, size, null);
+        size = keep;
+    }
+
+    /**
+     * Work out the values for rows {@code start} to {@code end}, without touching any elements
+     */
+    void ease(int frame, int start, int end) {
+        for (var i = start; i < end; i++) {
+            if (kind[i] == CUSTOM || frame < startFrame[i] || frame > startFrame[i] + duration[i]) continue;
+            var t = easing[i].ease((frame - startFrame[i]) / (double) duration[i]);
+            for (var f = i * STRIDE; f < (i + 1) * STRIDE; f++)
+                values[f] = from[f] + (to[f] - from[f]) * t;
+        }
+    }
+
+    void move(int src, int dst) {
+        kind[dst] = kind[src];
+        target[dst] = target[src];
+        custom[dst] = custom[src];
+        easing[dst] = easing[src];
+        startFrame[dst] = startFrame[src];
+        duration[dst] = duration[src];
+        System.arraycopy(from, src * STRIDE, from, dst * STRIDE, STRIDE);
+        System.arraycopy(to, src * STRIDE, to, dst * STRIDE, STRIDE);
+    }
+
+    static int channel(double value) {
+        return Math.max(0, Math.min(255, (int) value));
+    }
+
+    void apply(int i) {
+        var f = i * STRIDE;
+        switch (kind[i]) {
+            case MOVE:
+                ((Positionable<?>) target[i]).internalSetPos((int) values[f], (int) values[f + 1]);
+                break;
+            case ROTATE:
+                ((Positionable<?>) target[i]).internalSetRotation(Math.toRadians(values[f]));
+                break;
+            case COLOR: {
+                var argb = channel(values[f + 3]) << 24
+                        | channel(values[f]) << 16
+                        | channel(values[f + 1]) << 8
+                        | channel(values[f + 2]);
+                ((Colorable<?>) target[i]).internalSetArgb(argb);
+                break;
+            }
+            case OPACITY: {
+                var alpha = channel(values[f]);
+                var c = (Colorable<?>) target[i];
+                c.internalSetArgb(c.internalGetArgb() & 0xffffff | alpha << 24);
+
+                if (!(target[i] instanceof Outlineable)) break;
+                var o = (Outlineable<?>) target[i];
+                var outlineAlpha = channel(values[f + 1]);
+                o.internalSetOutlineArgb(o.internalGetOutlineArgb() & 0xffffff | outlineAlpha << 24);
+                break;
+            }
+        }
+    }
+
+    // never serialized
+    @SuppressWarnings("serial")
+    class EaseTask extends RecursiveAction {
+        final int frame, start, end;
+
+        EaseTask(int frame, int start, int end) {
+            this.frame = frame;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= CHUNK) {
+                ease(frame, start, end);
+                return;
+            }
+            var mid = (start + end) >>> 1;
+            invokeAll(new EaseTask(frame, start, mid), new EaseTask(frame, mid, end));
+        }
+    }
+}
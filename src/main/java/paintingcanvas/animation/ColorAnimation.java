@@ -2,6 +2,7 @@ package paintingcanvas.animation;
 
 import paintingcanvas.drawable.Colorable;
 import paintingcanvas.drawable.Drawable;
+import paintingcanvas.misc.ElementContainer;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
@@ -10,10 +11,15 @@ import java.awt.*;
  * Controls animation that is to do with colors
  */
 public class ColorAnimation extends Animation {
-    private final Color end;
-    private Color start;
+    // packed ARGB, see ColorCache
+    final int end;
+    int start;
 
     public ColorAnimation(Color end) {
+        this(end.getRGB());
+    }
+
+    ColorAnimation(int end) {
         super();
         this.end = end;
     }
@@ -28,34 +34,32 @@ public class ColorAnimation extends Animation {
     @Override
     protected void updateAnimation(Drawable<?> drawable, double progress) {
         var c = Misc.castDrawable(drawable, Colorable.class);
-        c.setColor(lerpColor(start, end, easing.ease(progress)));
+        c.internalSetArgb(lerpColor(start, end, easing.ease(progress)));
+        ElementContainer.publish();
     }
 
     @Override
     protected void initAnimation(Drawable<? extends Drawable<?>> drawable) {
         var c = Misc.castDrawable(drawable, Colorable.class);
-        this.start = c.getColor();
+        this.start = c.internalGetArgb();
     }
 
     /**
      * Linearly interpolate from one color to another
      *
-     * @param _a    Color to interpolate from
-     * @param _b    Color to interpolate to
+     * @param _a    Color to interpolate from, as packed ARGB
+     * @param _b    Color to interpolate to, as packed ARGB
      * @param delta How much to interpolate (0.0 - 1.0)
-     * @return The color at that point in the interpolation
+     * @return The color at that point in the interpolation, as packed ARGB
      */
-    Color lerpColor(Color _a, Color _b, double delta) {
-        var r = _a.getRed() + (_b.getRed() - _a.getRed()) * delta;
-        var g = _a.getGreen() + (_b.getGreen() - _a.getGreen()) * delta;
-        var b = _a.getBlue() + (_b.getBlue() - _a.getBlue()) * delta;
-        var a = _a.getAlpha() + (_b.getAlpha() - _a.getAlpha()) * delta;
-
-        return new Color(
-                Misc.clamp(0, (int) r, 255),
-                Misc.clamp(0, (int) g, 255),
-                Misc.clamp(0, (int) b, 255),
-                Misc.clamp(0, (int) a, 255)
-        );
+    static int lerpColor(int _a, int _b, double delta) {
+        return lerpChannel(_a, _b, 24, delta) << 24 | lerpChannel(_a, _b, 16, delta) << 16
+                | lerpChannel(_a, _b, 8, delta) << 8 | lerpChannel(_a, _b, 0, delta);
+    }
+
+    static int lerpChannel(int _a, int _b, int shift, double delta) {
+        var a = _a >>> shift & 0xff;
+        var b = _b >>> shift & 0xff;
+        return Misc.clamp(0, (int) (a + (b - a) * delta), 255);
     }
 }
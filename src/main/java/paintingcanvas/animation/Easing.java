@@ -205,37 +205,40 @@ public interface Easing {
     }
 
     static Easing easeOutBack() {
-        return t -> 1 - easeInBack().ease(1 - t);
+        var in = easeInBack();
+        return t -> 1 - in.ease(1 - t);
     }
 
     static Easing easeInOutBack() {
+        var in = easeInBack();
         return t -> {
-            if (t < 0.5) return easeInBack().ease(2 * t) / 2;
-            else return (2 - easeInBack().ease(2 - 2 * t)) / 2;
+            if (t < 0.5) return in.ease(2 * t) / 2;
+            else return (2 - in.ease(2 - 2 * t)) / 2;
         };
     }
 
     static Easing easeInElastic() {
-        return t -> {
-            var c4 = (2 * Math.PI) / 3;
-            return t == 0 || t == 1 ? t :
-                    -Math.pow(2, 10 * t - 10) * Math.sin((t * 10 - 10.75) * c4);
-        };
+        var c4 = (2 * Math.PI) / 3;
+        return t -> t == 0 || t == 1 ? t :
+                -Math.pow(2, 10 * t - 10) * Math.sin((t * 10 - 10.75) * c4);
     }
 
     static Easing easeOutElastic() {
-        return t -> 1 - easeInElastic().ease(1 - t);
+        var in = easeInElastic();
+        return t -> 1 - in.ease(1 - t);
     }
 
     static Easing easeInOutElastic() {
+        var in = easeInElastic();
         return t -> {
-            if (t < 0.5) return easeInElastic().ease(2 * t) / 2;
-            else return (2 - easeInElastic().ease(2 - 2 * t)) / 2;
+            if (t < 0.5) return in.ease(2 * t) / 2;
+            else return (2 - in.ease(2 - 2 * t)) / 2;
         };
     }
 
     static Easing easeInBounce() {
-        return t -> 1 - easeOutBounce().ease(1 - t);
+        var out = easeOutBounce();
+        return t -> 1 - out.ease(1 - t);
     }
 
     static Easing easeOutBounce() {
@@ -248,11 +251,26 @@ public interface Easing {
     }
 
     static Easing easeInOutBounce() {
+        var in = easeInBounce();
         return t -> {
-            if (t < 0.5) return easeInBounce().ease(2 * t) / 2;
-            else return (2 - easeInBounce().ease(2 - 2 * t)) / 2;
+            if (t < 0.5) return in.ease(2 * t) / 2;
+            else return (2 - in.ease(2 - 2 * t)) / 2;
         };
     }
 
     double ease(double t);
+
+    /**
+     * Sample this easing into a table, so it's cheaper to use in lots of animations.
+     * See {@link TabulatedEasing} for more control.
+     * <pre>{@code
+     * Easing easing = Easing.easeOutBounce().tabulated(0.0001);
+     * }</pre>
+     *
+     * @param maxError how far off the table is allowed to be from this easing
+     * @return an {@code Easing} that looks up its values in a table
+     */
+    default Easing tabulated(double maxError) {
+        return TabulatedEasing.of(this, maxError, TabulatedEasing.Interpolation.Cubic);
+    }
 }
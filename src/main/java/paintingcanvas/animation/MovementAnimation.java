@@ -2,6 +2,7 @@ package paintingcanvas.animation;
 
 import paintingcanvas.drawable.Drawable;
 import paintingcanvas.drawable.Positionable;
+import paintingcanvas.misc.ElementContainer;
 
 import java.awt.*;
 
@@ -35,10 +36,12 @@ public class MovementAnimation extends Animation {
     protected void updateAnimation(Drawable<?> drawable, double progress) {
         var t = easing.ease(progress);
         var p = (Positionable<?>) drawable;
-        p.setPos(
+        // already inside the frame's atomic block
+        p.internalSetPos(
                 (int) (start.x + (end.x - start.x) * t),
                 (int) (start.y + (end.y - start.y) * t)
         );
+        ElementContainer.publish();
     }
 
     @Override
@@ -3,10 +3,9 @@ package paintingcanvas.animation;
 import paintingcanvas.drawable.Colorable;
 import paintingcanvas.drawable.Drawable;
 import paintingcanvas.drawable.Outlineable;
+import paintingcanvas.misc.ElementContainer;
 import paintingcanvas.misc.Misc;
 
-import java.awt.*;
-
 /**
  * Controls animation that is to do with opacity
  */
@@ -37,26 +36,22 @@ public class OpacityAnimation extends Animation {
         var t = easing.ease(progress);
         var c = Misc.castDrawable(drawable, Colorable.class);
 
-        Color color = c.getColor();
         int alpha = Misc.clamp(0, (int) (start + (end - start) * t), 255);
-        c.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
+        c.internalSetArgb(c.internalGetArgb() & 0xffffff | alpha << 24);
 
-        try {
-            var o = (Outlineable<?>)drawable;
-            Color outlineColor = o .getOutlineColor();
+        if (drawable instanceof Outlineable) {
+            var o = (Outlineable<?>) drawable;
             int outlineAlpha = Misc.clamp(0, (int) (outlineStart + (end - outlineStart) * t), 255);
-            o .setOutline(new Color(outlineColor.getRed(), outlineColor.getGreen(), outlineColor.getBlue(), outlineAlpha));
-        } catch (ClassCastException ignored) {}
+            o.internalSetOutlineArgb(o.internalGetOutlineArgb() & 0xffffff | outlineAlpha << 24);
+        }
+        ElementContainer.publish();
     }
 
     @Override
     protected void initAnimation(Drawable<? extends Drawable<?>> drawable) {
         var c = Misc.castDrawable(drawable, Colorable.class);
-        this.start = c.getColor().getAlpha();
+        this.start = c.internalGetArgb() >>> 24;
 
-        try {
-            var o = (Outlineable<?>)drawable;
-            this.outlineStart = o.getOutlineColor().getAlpha();
-        } catch (ClassCastException ignored) {}
+        if (drawable instanceof Outlineable) this.outlineStart = ((Outlineable<?>) drawable).internalGetOutlineArgb() >>> 24;
     }
 }
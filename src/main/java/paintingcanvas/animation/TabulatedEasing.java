@@ -0,0 +1,144 @@
+package paintingcanvas.animation;
+
+/**
+ * <p>
+ * An {@link Easing} that has been sampled into a table ahead of time, so easing is just a lookup and an interpolation
+ * instead of calls to {@link Math#pow(double, double)} or {@link Math#sin(double)}.
+ * </p>
+ * <p>
+ * Use {@link Easing#tabulated(double)} to get one that's accurate to within some error, or
+ * {@link #TabulatedEasing(Easing, int, Interpolation)} to pick the size of the table yourself.
+ * Progress outside of 0-1 isn't in the table, so it's passed on to the original easing.
+ * </p>
+ * <pre>{@code
+ * // never more than 0.001 away from the real easing
+ * Easing easing = Easing.easeInOutElastic().tabulated(0.001);
+ * circle.animate().add(Animation.moveTo(300, 300).easing(easing), 3);
+ * }</pre>
+ */
+public class TabulatedEasing implements Easing {
+    /**
+     * The most intervals {@link #of(Easing, double, Interpolation)} will make a table with
+     */
+    public static final int MAX_INTERVALS = 1 << 16;
+    // how many points in each interval are checked to find the error
+    static final int CHECKS = 8;
+    final Easing easing;
+    final Interpolation interpolation;
+    final int intervals;
+    final double[] table;
+    final double maxError;
+
+    /**
+     * @param easing        the easing to sample
+     * @param intervals     how many pieces to split 0-1 into; the table has one more sample than this
+     * @param interpolation how to fill in between the samples
+     */
+    public TabulatedEasing(Easing easing, int intervals, Interpolation interpolation) {
+        if (intervals < 1) throw new IllegalArgumentException("A table needs at least one interval");
+        this.easing = easing;
+        this.interpolation = interpolation;
+        this.intervals = intervals;
+        this.table = new double[intervals + 1];
+        for (var i = 0; i <= intervals; i++) table[i] = easing.ease(i / (double) intervals);
+        this.maxError = measureError();
+    }
+
+    /**
+     * Make a table for {@code easing} that's accurate to within {@code maxError}, doubling its size until it is.
+     * If it can't get there (the table would need more than {@link #MAX_INTERVALS}, or the easing jumps somewhere so
+     * more samples stop helping) you get the closest table, and can check {@link #getMaxError()} to see how close.
+     *
+     * @param easing        the easing to sample
+     * @param maxError      how far off the table is allowed to be from the easing
+     * @param interpolation how to fill in between the samples
+     * @return the smallest table that's accurate enough
+     */
+    public static TabulatedEasing of(Easing easing, double maxError, Interpolation interpolation) {
+        var best = new TabulatedEasing(easing, 16, interpolation);
+        var current = best;
+        // a jump in the easing can't be fixed with more samples, so give up once they stop helping for a while
+        var stalled = 0;
+        while (best.maxError > maxError && current.intervals < MAX_INTERVALS && stalled < 3) {
+            current = new TabulatedEasing(easing, current.intervals * 2, interpolation);
+            if (current.maxError < best.maxError * 0.9) {
+                best = current;
+                stalled = 0;
+            } else stalled++;
+        }
+        return best;
+    }
+
+    /**
+     * @return the biggest difference from the original easing, found by checking {@value CHECKS} points in every
+     * interval of the table
+     */
+    public double getMaxError() {
+        return maxError;
+    }
+
+    /**
+     * @return how many pieces 0-1 is split into
+     */
+    public int getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * @return how the table fills in between the samples
+     */
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    double measureError() {
+        var error = 0.0;
+        for (var i = 0; i < intervals; i++) {
+            for (var j = 1; j < CHECKS; j++) {
+                var t = (i + j / (double) CHECKS) / intervals;
+                error = Math.max(error, Math.abs(ease(t) - easing.ease(t)));
+            }
+        }
+        return error;
+    }
+
+    // the samples past either end are made up by carrying on in a straight line
+    double sample(int i) {
+        if (i < 0) return 2 * table[0] - table[1];
+        if (i > intervals) return 2 * table[intervals] - table[intervals - 1];
+        return table[i];
+    }
+
+    @Override
+    public double ease(double t) {
+        if (!(t >= 0 && t <= 1)) return easing.ease(t);
+
+        var pos = t * intervals;
+        var i = Math.min((int) pos, intervals - 1);
+        var f = pos - i;
+        var p1 = table[i];
+        var p2 = table[i + 1];
+        if (interpolation == Interpolation.Linear) return p1 + (p2 - p1) * f;
+
+        // Catmull-Rom spline through the samples on either side
+        var p0 = sample(i - 1);
+        var p3 = sample(i + 2);
+        return p1 + 0.5 * f * (p2 - p0 + f * (2 * p0 - 5 * p1 + 4 * p2 - p3 + f * (3 * (p1 - p2) + p3 - p0)));
+    }
+
+    /**
+     * How to work out the values in between the samples of the table
+     */
+    public enum Interpolation {
+        /**
+         * Draw a straight line between the two closest samples. The cheapest, but needs a bigger table for curvy
+         * easings.
+         */
+        Linear,
+        /**
+         * Fit a smooth curve through the four closest samples. A little more work per call, but it can get away
+         * with a much smaller table.
+         */
+        Cubic,
+    }
+}
@@ -0,0 +1,206 @@
+package paintingcanvas.canvas;
+
+import paintingcanvas.InternalCanvas;
+import paintingcanvas.drawable.Colorable;
+import paintingcanvas.drawable.Drawable;
+import paintingcanvas.drawable.Positionable;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A list of changes to elements that are all applied together at the start of a frame, see {@link Canvas#batch()}.
+ * </p>
+ * <p>
+ * Recording a change is just a few writes into some arrays, so this is a lot cheaper than calling the setters one at a
+ * time when moving thousands of elements. Nothing happens to the elements until the batch is {@link #commit()
+ * committed}; then the frame loop applies every change in one go, in the order they were recorded, and they all show
+ * up on the same frame like with {@link Canvas#atomic(Runnable)}.
+ * </p>
+ * <pre>{@code
+ * Batch batch = canvas.batch();
+ * for (Rectangle r : rects) batch.move(r, 10, 0);
+ * batch.commit();
+ * }</pre>
+ * <p>
+ * A batch can only be committed once. Because the changes are applied on the frame loop, getters like
+ * {@link Positionable#getPos()} will still give the old values until the next frame.
+ * </p>
+ */
+public class Batch {
+    static final byte SET_POS = 0;
+    static final byte MOVE = 1;
+    static final byte SET_ROTATION = 2;
+    static final byte ROTATE = 3;
+    static final byte SET_COLOR = 4;
+    static final byte SET_LAYER = 5;
+
+    byte[] ops = new byte[16];
+    Drawable<?>[] targets = new Drawable<?>[16];
+    int[] ints = new int[32];
+    double[] doubles = new double[16];
+    int size = 0;
+    boolean committed = false;
+    volatile boolean applied = false;
+
+    Batch() {
+    }
+
+    /**
+     * @return the number of changes in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the batch has been applied to the elements yet
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    /**
+     * Set the position of an element, like {@link Positionable#setPos(int, int)}
+     *
+     * @param drawable the element
+     * @param x        the new X-position
+     * @param y        the new Y-position
+     * @return this batch to allow method chaining
+     */
+    public Batch setPos(Positionable<?> drawable, int x, int y) {
+        var i = push(SET_POS, drawable);
+        ints[i * 2] = x;
+        ints[i * 2 + 1] = y;
+        return this;
+    }
+
+    /**
+     * Move an element, like {@link Positionable#move(int, int)}.
+     * The move is relative to wherever the element is when the batch gets applied.
+     *
+     * @param drawable the element
+     * @param x        the x to move by
+     * @param y        the y to move by
+     * @return this batch to allow method chaining
+     */
+    public Batch move(Positionable<?> drawable, int x, int y) {
+        var i = push(MOVE, drawable);
+        ints[i * 2] = x;
+        ints[i * 2 + 1] = y;
+        return this;
+    }
+
+    /**
+     * Set the rotation of an element, like {@link Positionable#setRotation(double)}
+     *
+     * @param drawable the element
+     * @param rotation the absolute rotation (degrees)
+     * @return this batch to allow method chaining
+     */
+    public Batch setRotation(Positionable<?> drawable, double rotation) {
+        var i = push(SET_ROTATION, drawable);
+        doubles[i] = Math.toRadians(rotation);
+        return this;
+    }
+
+    /**
+     * Rotate an element, like {@link Positionable#rotate(double)}
+     *
+     * @param drawable the element
+     * @param rotation the change in rotation (degrees)
+     * @return this batch to allow method chaining
+     */
+    public Batch rotate(Positionable<?> drawable, double rotation) {
+        var i = push(ROTATE, drawable);
+        doubles[i] = Math.toRadians(rotation);
+        return this;
+    }
+
+    /**
+     * Set the color of an element, like {@link Colorable#setColor(Color)}
+     *
+     * @param drawable the element
+     * @param color    the new color
+     * @return this batch to allow method chaining
+     */
+    public Batch setColor(Colorable<?> drawable, Color color) {
+        var i = push(SET_COLOR, drawable);
+        ints[i * 2] = color.getRGB();
+        return this;
+    }
+
+    /**
+     * Put an element on a different layer, like {@link Drawable#setLayer(int)}
+     *
+     * @param drawable the element
+     * @param layer    the new layer
+     * @return this batch to allow method chaining
+     */
+    public Batch setLayer(Drawable<?> drawable, int layer) {
+        var i = push(SET_LAYER, drawable);
+        ints[i * 2] = layer;
+        return this;
+    }
+
+    /**
+     * Hand the batch over to be applied at the start of the next frame.
+     * Batches are applied in the order they were committed.
+     *
+     * @throws IllegalStateException if the batch was already committed
+     */
+    public void commit() {
+        if (committed) throw new IllegalStateException("Batch has already been committed");
+        committed = true;
+        InternalCanvas.batches.add(this);
+    }
+
+    int push(byte op, Drawable<?> drawable) {
+        if (committed) throw new IllegalStateException("Batch has already been committed");
+        if (size == ops.length) {
+            var capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            ints = Arrays.copyOf(ints, capacity * 2);
+            doubles = Arrays.copyOf(doubles, capacity);
+        }
+        ops[size] = op;
+        targets[size] = drawable;
+        return size++;
+    }
+
+    /**
+     * Apply all the changes. Called by the frame loop, which is already in an atomic block.
+     */
+    void apply() {
+        for (var i = 0; i < size; i++) {
+            var target = targets[i];
+            switch (ops[i]) {
+                case SET_POS:
+                    ((Positionable<?>) target).internalSetPos(ints[i * 2], ints[i * 2 + 1]);
+                    break;
+                case MOVE: {
+                    var p = (Positionable<?>) target;
+                    p.internalSetPos(p.getX() + ints[i * 2], p.getY() + ints[i * 2 + 1]);
+                    break;
+                }
+                case SET_ROTATION:
+                    ((Positionable<?>) target).internalSetRotation(doubles[i]);
+                    break;
+                case ROTATE: {
+                    var p = (Positionable<?>) target;
+                    p.internalSetRotation(p.internalGetRotation() + doubles[i]);
+                    break;
+                }
+                case SET_COLOR:
+                    ((Colorable<?>) target).internalSetArgb(ints[i * 2]);
+                    break;
+                case SET_LAYER:
+                    InternalCanvas.elements.setLayer(target, ints[i * 2]);
+                    break;
+            }
+        }
+        applied = true;
+    }
+}
@@ -8,8 +8,6 @@ import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * The internal canvas component that is used to draw to the screen
@@ -47,7 +45,9 @@ public class Canvas implements Interactable {
             throw new RuntimeException("Canvas has already been initialized");
         InternalCanvas.startSize = new Dimension(width, height);
         InternalCanvas.translation = new Point2D.Float(0, 0);
-        InternalCanvas.panel = new CanvasPanel(this, width, height, title);
+        InternalCanvas.renderer = new FrameRenderer();
+        if (options.headless) InternalCanvas.headless = new HeadlessRenderer();
+        else InternalCanvas.panel = new CanvasPanel(this, width, height, title);
         InternalCanvas.canvas = this;
         InternalCanvas.options = options;
         InternalCanvas.initialized = true;
@@ -111,6 +111,7 @@ public class Canvas implements Interactable {
      * @param title the new title
      */
     public void setTitle(String title) {
+        if (InternalCanvas.panel == null) return;
         InternalCanvas.panel.jframe.setTitle(title);
     }
 
@@ -169,14 +170,15 @@ public class Canvas implements Interactable {
     }
 
     public void render() {
-        // TODO: Account for the time it takes to run the render function
-        // (Implement the run with a loop and thread::sleep) or dont -- im sure you will get a warning for busy waiting
-        ScheduledThreadPoolExecutor poolExecutor = new ScheduledThreadPoolExecutor(1);
-        poolExecutor.scheduleAtFixedRate(
-                InternalCanvas.panel::repaint, 0,
-                1000000 / InternalCanvas.options.fps,
-                TimeUnit.MICROSECONDS
-        );
+        var options = InternalCanvas.options;
+        var headless = InternalCanvas.headless;
+        // frames only happen when they're asked for
+        if (headless != null && options.manualFrames) return;
+
+        // with a window, painting happens on the swing thread whenever it gets around to it
+        Runnable paint = headless != null ? headless::step : InternalCanvas.panel::repaint;
+        InternalCanvas.scheduler = new FrameScheduler(paint, headless == null, options.framePolicy, options.maxCatchUpFrames);
+        InternalCanvas.scheduler.start(headless != null);
     }
 
     /**
@@ -199,6 +201,7 @@ public class Canvas implements Interactable {
     /**
      * Runs the specified code all on the same frame.
      * Without it, because the rendering is decoupled from your code, many operations can be randomly split across frames.
+     * Frames that get rendered while the code is running are thrown away, so keep it short.
      *
      * <pre>{@code
      * Canvas canvas = new Canvas();
@@ -214,6 +217,54 @@ public class Canvas implements Interactable {
         ElementContainer.atomic(r);
     }
 
+    /**
+     * Start recording a {@link Batch} of changes, which are all applied at once at the start of a frame.
+     * This is much cheaper than calling the setters directly when changing lots of elements every frame.
+     *
+     * <pre>{@code
+     * Canvas canvas = new Canvas();
+     * Rectangle[] rects = ...;
+     * Batch batch = canvas.batch();
+     * for (Rectangle r : rects) batch.move(r, 10, 0).setColor(r, Color.RED);
+     * batch.commit();
+     * }</pre>
+     *
+     * @return a new, empty batch
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Cache a layer: everything on it is drawn onto an image of its own, which is then just copied onto the canvas
+     * every frame instead of drawing all of its elements again. When something on the layer changes (or is added,
+     * removed or moved onto or off of it), only that part of the image gets drawn again.
+     * This is great for big backgrounds made of lots of elements that rarely change.
+     *
+     * <pre>{@code
+     * Canvas canvas = new Canvas();
+     * for (int x = 0; x < 80; x++)
+     *     for (int y = 0; y < 40; y++)
+     *         new Square(x * 10 + 5, y * 10 + 5, 10).setLayer(-1);
+     * canvas.setLayerCached(-1, true);
+     * }</pre>
+     *
+     * @param layer  the layer, see {@link paintingcanvas.drawable.Drawable#setLayer(int)}
+     * @param cached whether to cache it
+     */
+    public void setLayerCached(int layer, boolean cached) {
+        InternalCanvas.renderer.setLayerCached(layer, cached);
+    }
+
+    /**
+     * @param layer the layer
+     * @return whether the layer is cached
+     * @see #setLayerCached(int, boolean)
+     */
+    public boolean isLayerCached(int layer) {
+        return InternalCanvas.renderer.isLayerCached(layer);
+    }
+
     @Override
     public boolean intersects(Point pos) {
         return pos.x > 0 && pos.x < getWidth() && pos.y > 0 && pos.y < getHeight();
@@ -228,16 +279,10 @@ public class Canvas implements Interactable {
 
     @Override
     public boolean clicked() {
-        synchronized (InternalCanvas.mouseClickEvents) {
-            var opt = InternalCanvas.mouseClickEvents.stream()
-                    .filter(e -> e.first.getButton() == MouseEvent.BUTTON1)
-                    .findFirst();
-            if (opt.isPresent() && handled != opt.get().first) {
-                handled = opt.get().first;
-                return intersects(handled.getPoint());
-            }
-        }
-        return false;
+        var click = InternalCanvas.leftClick;
+        if (click == null || click == handled) return false;
+        handled = click;
+        return intersects(click.getPoint());
     }
 
     /**
@@ -40,6 +40,74 @@ public class CanvasOptions {
      * default: {@code 30}
      */
     public int fps = 30;
+    /**
+     * Whether to render without a window, into an offscreen {@link java.awt.image.BufferedImage}.
+     * Frames are rendered as fast as possible instead of at {@link #fps}.
+     * <p>
+     * default: {@code false}
+     */
+    public boolean headless = false;
+    /**
+     * Only used when {@link #headless}: don't run frames on their own, only when
+     * {@link HeadlessRenderer#nextFrame()} is called. Handy for tests and benchmarks that need to know exactly what
+     * happens on each frame.
+     * <p>
+     * default: {@code false}
+     */
+    public boolean manualFrames = false;
+    /**
+     * What to do when frames can't keep up with {@link #fps}, see {@link FrameScheduler.Policy}
+     * <p>
+     * default: {@link FrameScheduler.Policy#CatchUp}
+     */
+    public FrameScheduler.Policy framePolicy = FrameScheduler.Policy.CatchUp;
+    /**
+     * The most frames that {@link FrameScheduler.Policy#CatchUp} will update at once before painting
+     * <p>
+     * default: {@code 5}
+     */
+    public int maxCatchUpFrames = 5;
+    /**
+     * Whether the easing for lots of animations (thousands) can be worked out on multiple threads.
+     * The results are the same either way, as long as your {@link paintingcanvas.animation.Easing Easings} don't have
+     * side effects.
+     * <p>
+     * default: {@code true}
+     */
+    public boolean parallelAnimations = true;
+    /**
+     * Only draw the parts of the canvas that changed since the last frame, instead of everything every frame.
+     * Great for scenes where only a few things move at a time, and a frame where nothing changed costs almost
+     * nothing. {@link RenderLifecycle#preRender} and {@link RenderLifecycle#postRender} are run once for each changed
+     * area, and only draw inside it; if they draw something that changes, call {@link FrameRenderer#invalidate()}.
+     * <p>
+     * default: {@code false}
+     */
+    public boolean dirtyRegions = false;
+    /**
+     * How far (in degrees) an element with a {@link paintingcanvas.drawable.DrawableBase#setSpriteCached(boolean)
+     * cached sprite} can be rotated from the angle its sprite was drawn at, before the sprite is drawn again.
+     * Within that, the old sprite is just turned, which is quicker but a little blurry.
+     * <p>
+     * default: {@code 0} (any rotation draws the sprite again)
+     */
+    public double spriteRotationTolerance = 0;
+    /**
+     * How many bytes of loaded images {@link paintingcanvas.misc.ImageCache} keeps around before it starts dropping
+     * the ones that were used longest ago.
+     * <p>
+     * default: {@code 256 MiB}
+     */
+    public long imageCacheSize = 256L << 20;
+    /**
+     * How many threads to draw each frame with. With more than one, frames are split into 256px tiles that are drawn at
+     * the same time. Shapes that cross the edge of a tile are cut off there, so a few pixels along their edges (mostly
+     * outlines and lines) can come out a little different from drawing on one thread. Only frames that are drawn from
+     * scratch are split up, not the small changes drawn with {@link #dirtyRegions}.
+     * <p>
+     * default: {@code 1}
+     */
+    public int renderThreads = 1;
 
     public CanvasOptions() {
     }
@@ -123,4 +191,204 @@ public class CanvasOptions {
         this.backgroundColor = backgroundColor;
         return this;
     }
+
+    /**
+     * @return Whether to render without a window
+     * @see #headless(boolean)
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Default: {@code false}
+     * <pre>{@code
+     * // render frames into an image on a machine without a display
+     * Canvas canvas = new Canvas(900, 600, "Canvas", new CanvasOptions().headless(true));
+     * }</pre>
+     *
+     * @param headless Whether to render without a window, into an offscreen image
+     * @return This object for chaining
+     * @see #isHeadless()
+     */
+    public CanvasOptions headless(boolean headless) {
+        this.headless = headless;
+        return this;
+    }
+
+    /**
+     * @return Whether headless frames only run when {@link HeadlessRenderer#nextFrame()} is called
+     * @see #manualFrames(boolean)
+     */
+    public boolean isManualFrames() {
+        return manualFrames;
+    }
+
+    /**
+     * Default: {@code false}
+     * <pre>{@code
+     * Canvas canvas = new Canvas(900, 600, "Canvas", new CanvasOptions().headless(true).manualFrames(true));
+     * new Circle(100, 100, 50);
+     * InternalCanvas.headless.nextFrame();
+     * }</pre>
+     *
+     * @param manualFrames Whether headless frames only run when {@link HeadlessRenderer#nextFrame()} is called
+     * @return This object for chaining
+     * @see #isManualFrames()
+     */
+    public CanvasOptions manualFrames(boolean manualFrames) {
+        this.manualFrames = manualFrames;
+        return this;
+    }
+
+    /**
+     * @return What to do when frames can't keep up with the fps
+     * @see #framePolicy(FrameScheduler.Policy)
+     */
+    public FrameScheduler.Policy getFramePolicy() {
+        return framePolicy;
+    }
+
+    /**
+     * Default: {@link FrameScheduler.Policy#CatchUp}
+     *
+     * @param framePolicy What to do when frames can't keep up with the fps
+     * @return This object for chaining
+     * @see #getFramePolicy()
+     */
+    public CanvasOptions framePolicy(FrameScheduler.Policy framePolicy) {
+        this.framePolicy = framePolicy;
+        return this;
+    }
+
+    /**
+     * @return The most frames that will be updated at once to catch up
+     * @see #maxCatchUpFrames(int)
+     */
+    public int getMaxCatchUpFrames() {
+        return maxCatchUpFrames;
+    }
+
+    /**
+     * Default: {@code 5}
+     *
+     * @param maxCatchUpFrames The most frames that {@link FrameScheduler.Policy#CatchUp} will update at once before painting
+     * @return This object for chaining
+     * @see #getMaxCatchUpFrames()
+     */
+    public CanvasOptions maxCatchUpFrames(int maxCatchUpFrames) {
+        this.maxCatchUpFrames = maxCatchUpFrames;
+        return this;
+    }
+
+    /**
+     * @return Whether the easing for lots of animations can be worked out on multiple threads
+     * @see #parallelAnimations(boolean)
+     */
+    public boolean isParallelAnimations() {
+        return parallelAnimations;
+    }
+
+    /**
+     * Default: {@code true}
+     *
+     * @param parallelAnimations Whether the easing for lots of animations can be worked out on multiple threads
+     * @return This object for chaining
+     * @see #isParallelAnimations()
+     */
+    public CanvasOptions parallelAnimations(boolean parallelAnimations) {
+        this.parallelAnimations = parallelAnimations;
+        return this;
+    }
+
+    /**
+     * @return Whether only the parts of the canvas that changed are drawn each frame
+     * @see #dirtyRegions(boolean)
+     */
+    public boolean isDirtyRegions() {
+        return dirtyRegions;
+    }
+
+    /**
+     * Default: {@code false}
+     * <pre>{@code
+     * Canvas canvas = new Canvas(900, 600, "Canvas", new CanvasOptions().dirtyRegions(true));
+     * }</pre>
+     *
+     * @param dirtyRegions Whether only the parts of the canvas that changed are drawn each frame
+     * @return This object for chaining
+     * @see #isDirtyRegions()
+     */
+    public CanvasOptions dirtyRegions(boolean dirtyRegions) {
+        this.dirtyRegions = dirtyRegions;
+        return this;
+    }
+
+    /**
+     * @return How far an element with a cached sprite can be rotated before the sprite is drawn again, in degrees
+     * @see #spriteRotationTolerance(double)
+     */
+    public double getSpriteRotationTolerance() {
+        return spriteRotationTolerance;
+    }
+
+    /**
+     * Default: {@code 0}
+     *
+     * @param spriteRotationTolerance How far an element with a cached sprite can be rotated before the sprite is drawn
+     *                                again, in degrees
+     * @return This object for chaining
+     * @see #getSpriteRotationTolerance()
+     */
+    public CanvasOptions spriteRotationTolerance(double spriteRotationTolerance) {
+        this.spriteRotationTolerance = spriteRotationTolerance;
+        return this;
+    }
+
+    /**
+     * @return How many bytes of loaded images are kept around
+     * @see #imageCacheSize(long)
+     */
+    public long getImageCacheSize() {
+        return imageCacheSize;
+    }
+
+    /**
+     * Default: {@code 256 MiB}
+     * <pre>{@code
+     * Canvas canvas = new Canvas(900, 600, "Canvas", new CanvasOptions().imageCacheSize(64L << 20));
+     * }</pre>
+     *
+     * @param imageCacheSize How many bytes of loaded images are kept around
+     * @return This object for chaining
+     * @see #getImageCacheSize()
+     */
+    public CanvasOptions imageCacheSize(long imageCacheSize) {
+        this.imageCacheSize = imageCacheSize;
+        return this;
+    }
+
+    /**
+     * @return How many threads each frame is drawn with
+     * @see #renderThreads(int)
+     */
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    /**
+     * Default: {@code 1}
+     * <pre>{@code
+     * int cores = Runtime.getRuntime().availableProcessors();
+     * Canvas canvas = new Canvas(3840, 2160, "Canvas", new CanvasOptions().renderThreads(cores));
+     * }</pre>
+     *
+     * @param renderThreads How many threads each frame is drawn with
+     * @return This object for chaining
+     * @see #getRenderThreads()
+     */
+    public CanvasOptions renderThreads(int renderThreads) {
+        this.renderThreads = renderThreads;
+        return this;
+    }
 }
@@ -9,7 +9,6 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.awt.image.BufferedImage;
 
 /**
  * Internal class that extends JPanel that does the initial setup of the JFrame
@@ -19,10 +18,6 @@ import java.awt.image.BufferedImage;
 public class CanvasPanel extends JPanel {
     final int initialWidth, initialHeight;
     public JFrame jframe;
-    /**
-     * The image that is drawn to the screen
-     */
-    public BufferedImage image;
     public Canvas canvas;
 
     CanvasPanel(Canvas canvas, int width, int height, String title) {
@@ -105,100 +100,14 @@ public class CanvasPanel extends JPanel {
      * @param g the <code>Graphics</code> context in which to paint
      */
     public void paintComponent(Graphics g) {
-        var gc = (Graphics2D) g;
-        var gc_copy = (Graphics2D) gc.create();
-        var animations = InternalCanvas.animations;
-        var options = InternalCanvas.options;
-
-        synchronized (InternalCanvas.frameSync) {
-            InternalCanvas.frameSync.notify();
-        }
-        super.paintComponent(gc);
-
-        InternalCanvas.frame++;
+        var renderer = InternalCanvas.renderer;
+        super.paintComponent(g);
         if (InternalCanvas.frame < 0) return;
 
-        synchronized (InternalCanvas.animations) {
-            // Update animations
-            for (int i = 0; i < animations.size(); i++) {
-                var animation = animations.get(i);
-                if (!animation.ended(InternalCanvas.frame)) {
-                    animation.update(InternalCanvas.frame);
-                    continue;
-                }
-
-                // remove the animation
-                animations.remove(i);
-                i--;
-            }
-            if (animations.isEmpty()) {
-                // if there are no animations, notify the animation sync
-                synchronized (InternalCanvas.animationSync) {
-                    InternalCanvas.animationSync.notifyAll();
-                }
-            }
-        }
         // set mouse position
         InternalCanvas.mousePosition = InternalCanvas.panel.getMousePosition();
 
-        // Render elements onto an image
-        image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-        var ig = (Graphics2D) image.getGraphics();
-        var ig_copy = (Graphics2D) ig.create();
-
-        ig.setColor(options.backgroundColor);
-        ig.fillRect(0, 0, getWidth(), getHeight());
-        synchronized (InternalCanvas.translationSync) {
-//            System.out.println(canvas.translation);
-            ig.translate((int) InternalCanvas.translation.x, (int) InternalCanvas.translation.y);
-        }
-
-        InternalCanvas.renderLifecycles.forEach(e -> {
-            var ig_temp = (Graphics2D) ig_copy.create();
-            e.preRender(ig_temp);
-            ig_temp.dispose();
-        });
-        synchronized (InternalCanvas.drawableSync) {
-            InternalCanvas.elements.foreach(element -> {
-                try {
-                    element.render(ig);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    element.erase();
-                }
-            });
-        }
-        synchronized (InternalCanvas.mouseClickEvents) {
-            for (var event : InternalCanvas.mouseClickEvents) {
-                event.second--;
-            }
-            InternalCanvas.mouseClickEvents.removeIf(e -> e.second <= 0);
-        }
-
-        InternalCanvas.renderLifecycles.forEach(e -> {
-            var ig_temp = (Graphics2D) ig_copy.create();
-            e.postRender(ig_temp);
-            ig_temp.dispose();
-        });
-        ig_copy.dispose();
-
-        // copy the image onto the screen
-        InternalCanvas.renderLifecycles.forEach(e -> {
-            var gc_temp = (Graphics2D) gc_copy.create();
-            e.renderStart(gc_temp);
-            gc_temp.dispose();
-        });
-        gc.drawImage(
-                image,
-                0, 0,
-                null
-        );
-        ig.dispose();
-        InternalCanvas.renderLifecycles.forEach(e -> {
-            var gc_temp = (Graphics2D) gc_copy.create();
-            e.renderEnd(gc_temp);
-            gc_temp.dispose();
-        });
-        gc_copy.dispose();
+        renderer.render(getWidth(), getHeight());
+        renderer.present((Graphics2D) g);
     }
 }
@@ -0,0 +1,554 @@
+package paintingcanvas.canvas;
+
+import paintingcanvas.InternalCanvas;
+import paintingcanvas.drawable.Drawable;
+import paintingcanvas.misc.DamageRegion;
+import paintingcanvas.misc.ElementContainer;
+
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+
+/**
+ * <p>
+ * Does the actual work of producing a frame: advancing the frame counter, updating the animations, and drawing all the
+ * {@link paintingcanvas.drawable.Drawable Drawables} onto an {@link BufferedImage image}.
+ * </p>
+ * <p>
+ * This doesn't care where the image ends up, so it's shared between the {@link CanvasPanel} (which copies it onto the
+ * screen) and the {@link HeadlessRenderer} (which doesn't have a screen at all).
+ * </p>
+ * <p>
+ * The images are double-buffered and reused between frames: a frame is drawn into the back buffer, which then becomes
+ * {@link #image}, and the old {@link #image} is drawn over on the frame after. They are only reallocated when the
+ * size of the canvas changes. If you need to hold on to a frame for any longer than that, take a {@link #snapshot()}.
+ * </p>
+ * <p>
+ * Rendering doesn't lock the elements, so user code can keep changing them while a frame is drawn. If an
+ * {@link paintingcanvas.canvas.Canvas#atomic(Runnable) atomic} block ran at the same time, the frame might only have
+ * some of its changes, so it's thrown away and {@link #image} stays on the last complete frame.
+ * </p>
+ * <p>
+ * With {@link CanvasOptions#dirtyRegions}, each buffer remembers what changed since it was last drawn on (the other
+ * buffer is always a frame behind), and only those areas are drawn again. Each area is drawn onto a scratch image
+ * without a clip and then copied over, so the result is exactly the same as drawing everything.
+ * </p>
+ * <p>
+ * {@link Canvas#setLayerCached(int, boolean) Cached layers} get an image of their own, which is brought up to date
+ * the same way (only redrawing what changed on that layer) and then copied in where the layer's elements would have
+ * been drawn.
+ * </p>
+ * <p>
+ * With {@link CanvasOptions#renderThreads} above one, frames that are drawn from scratch are split into tiles that
+ * are drawn at the same time. Each thread draws the elements touching its tile onto a tile-sized scratch image of its
+ * own, clipped to the tile, and copies it back. Java2D doesn't always draw a shape that's cut off by a clip exactly the
+ * same as the whole thing, so a few pixels along the edges of shapes that cross a tile's edge (mostly outlines and
+ * lines) can come out a little different from drawing on one thread. Everything is still in the same place; it's
+ * around one pixel in ten thousand on a busy frame.
+ * </p>
+ */
+public class FrameRenderer {
+    static final int MAX_DISCARDED_IN_A_ROW = 3;
+    static final int TILE_SIZE = 256;
+    /**
+     * The image that the last frame was rendered to.
+     * It will be drawn over two frames from now, see {@link #snapshot()}.
+     */
+    public BufferedImage image;
+    final Object bufferSync = new Object();
+    final BufferedImage[] buffers = new BufferedImage[2];
+    int back = 0;
+    int discardedInARow = 0;
+    volatile long discardedFrames = 0;
+    // what has changed since each buffer was last drawn on, and since the last frame
+    final DamageRegion[] damage = {new DamageRegion(), new DamageRegion()};
+    final DamageRegion frameDamage = new DamageRegion();
+    volatile boolean invalidated = false;
+    int lastTx, lastTy;
+    Color lastBackground;
+    // where changed areas are drawn before being copied onto the buffer
+    BufferedImage scratch;
+    final Map<Integer, LayerCache> cachedLayers = new ConcurrentHashMap<>();
+    final IntFunction<DamageRegion> layerDamage = layer -> {
+        var cache = cachedLayers.get(layer);
+        return cache == null ? null : cache.damage;
+    };
+    ForkJoinPool tilePool;
+    // a scratch image for each thread drawing tiles
+    final ConcurrentLinkedQueue<BufferedImage> tileScratch = new ConcurrentLinkedQueue<>();
+
+    FrameRenderer() {
+    }
+
+    /**
+     * @return The number of frames that were rendered but thrown away, because an atomic block ran at the same time
+     */
+    public long getDiscardedFrames() {
+        return discardedFrames;
+    }
+
+    /**
+     * Advance to the next frame, apply any committed {@link Batch Batches} and update all the running animations.
+     *
+     * @return false if the frame shouldn't be rendered (the canvas is still warming up)
+     */
+    boolean update() {
+        var animations = InternalCanvas.animations;
+
+        synchronized (InternalCanvas.frameSync) {
+            InternalCanvas.frameSync.notify();
+        }
+
+        InternalCanvas.frame++;
+        if (InternalCanvas.frame < 0) return false;
+
+        // all the batches, loaded images and animations are applied on the same frame
+        ElementContainer.internalAtomic(() -> {
+            Batch batch;
+            while ((batch = InternalCanvas.batches.poll()) != null) batch.apply();
+            Runnable task;
+            while ((task = InternalCanvas.frameTasks.poll()) != null) task.run();
+
+            animations.update(InternalCanvas.frame, InternalCanvas.options.parallelAnimations);
+            if (animations.isEmpty()) {
+                // if there are no animations, notify the animation sync
+                synchronized (InternalCanvas.animationSync) {
+                    InternalCanvas.animationSync.notifyAll();
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Render all the elements onto {@link #image}, running the {@code preRender} and {@code postRender} lifecycles.
+     * If an atomic block is running, or starts running before the frame is done, {@link #image} is left as it was.
+     * With {@link CanvasOptions#dirtyRegions}, only the parts of the image that changed are drawn, and if nothing
+     * changed {@link #image} is left as it was too.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return the rendered image
+     */
+    BufferedImage render(int width, int height) {
+        var options = InternalCanvas.options;
+        var token = ElementContainer.internalBeginRead();
+        // an atomic block is half way through, so don't bother
+        if (token < 0 && image != null) return discard();
+
+        // Render elements onto the back buffer, only making a new one if the size changed
+        var target = buffers[back];
+        if (target == null || target.getWidth() != width || target.getHeight() != height) {
+            target = buffers[back] = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            damage[back].addAll();
+        }
+
+        int tx, ty;
+        synchronized (InternalCanvas.translationSync) {
+            tx = (int) InternalCanvas.translation.x;
+            ty = (int) InternalCanvas.translation.y;
+        }
+        var viewport = new Rectangle(-tx, -ty, width, height);
+        var moved = tx != lastTx || ty != lastTy;
+        lastTx = tx;
+        lastTy = ty;
+        var layers = cachedLayers.isEmpty() ? null : layerDamage;
+
+        // work out what needs drawing: everything, or whatever changed since this buffer was last drawn on
+        var todo = damage[back];
+        if (options.dirtyRegions) {
+            frameDamage.clear();
+            InternalCanvas.elements.internalUpdate(viewport, frameDamage, layers);
+            if (invalidated || moved || !options.backgroundColor.equals(lastBackground))
+                frameDamage.addAll();
+            invalidated = false;
+            lastBackground = options.backgroundColor;
+            // the other buffer is a frame further behind, so it needs this frame's changes too
+            for (var d : damage) d.add(frameDamage);
+
+            if (todo.isEmpty() && image != null) {
+                expireClicks();
+                return image;
+            }
+        } else {
+            InternalCanvas.elements.internalUpdate(viewport, null, layers);
+            todo.addAll();
+        }
+
+        var failed = new ArrayList<Drawable<?>>();
+        for (var entry : cachedLayers.entrySet())
+            updateLayer(entry.getKey(), entry.getValue(), width, height, viewport, failed);
+
+        var ig = (Graphics2D) target.getGraphics();
+        var ig_copy = (Graphics2D) ig.create();
+        if (todo.isFull()) {
+            // the buffer still has an old frame in it, so replace the pixels instead of blending over them
+            ig.setComposite(AlphaComposite.Src);
+            ig.setColor(options.backgroundColor);
+            ig.fillRect(0, 0, width, height);
+            ig.setComposite(AlphaComposite.SrcOver);
+            ig.translate(tx, ty);
+            // the elements put this back when they're done, so it's only read once a frame
+            var base = ig.getTransform();
+            if (options.renderThreads > 1) {
+                renderTiles(target, ig_copy, viewport, failed, options.renderThreads);
+                updateHitboxes(base, viewport, failed);
+            } else {
+                if (tilePool != null) stopTiles();
+                renderArea(ig, base, ig_copy, viewport, failed);
+            }
+            postRender(ig_copy);
+        } else {
+            var scratch = scratch(width, height);
+
+            // Java2D doesn't draw outlines and curves quite the same when they're cut off by a clip, so instead of
+            // clipping, each area is drawn on a scratch image with nothing in the way and then copied over
+            var sg = (Graphics2D) scratch.getGraphics();
+            var sg_copy = (Graphics2D) sg.create();
+            sg.translate(tx, ty);
+            var base = sg.getTransform();
+            ig.setComposite(AlphaComposite.Src);
+            for (var area : todo.getRects()) {
+                var x = area.x + tx;
+                var y = area.y + ty;
+                sg.setComposite(AlphaComposite.Src);
+                sg.setColor(options.backgroundColor);
+                sg.fillRect(area.x, area.y, area.width, area.height);
+                sg.setComposite(AlphaComposite.SrcOver);
+                sg_copy.setClip(x, y, area.width, area.height);
+                renderArea(sg, base, sg_copy, area, failed);
+                // only over this area, the rest of the buffer already has what they drew last time
+                postRender(sg_copy);
+                ig.drawImage(scratch, x, y, x + area.width, y + area.height, x, y, x + area.width, y + area.height, null);
+            }
+            ig.setComposite(AlphaComposite.SrcOver);
+            sg_copy.dispose();
+            sg.dispose();
+            ig.translate(tx, ty);
+        }
+        // can't erase while going through the elements
+        failed.forEach(Drawable::erase);
+        expireClicks();
+
+        ig_copy.dispose();
+        ig.dispose();
+
+        // the first frame is shown no matter what, there's nothing else to show
+        // (the damage is kept, so the half-drawn parts get drawn again next time)
+        if (!ElementContainer.internalEndRead(token) && image != null) return discard();
+        discardedInARow = 0;
+        ElementContainer.internalSetStarving(false);
+        todo.clear();
+
+        synchronized (bufferSync) {
+            image = target;
+            back ^= 1;
+        }
+        return image;
+    }
+
+    BufferedImage scratch(int width, int height) {
+        if (scratch == null || scratch.getWidth() != width || scratch.getHeight() != height)
+            scratch = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        return scratch;
+    }
+
+    /**
+     * Run the {@code preRender} lifecycles and draw the elements in {@code area}, copying in the cached layers instead
+     * of drawing their elements
+     */
+    void renderArea(Graphics2D g, AffineTransform base, Graphics2D g_copy, Rectangle area, List<Drawable<?>> failed) {
+        preRender(g_copy);
+        renderElements(g, base, base, area, failed);
+    }
+
+    static void preRender(Graphics2D g_copy) {
+        InternalCanvas.renderLifecycles.forEach(e -> {
+            var g_temp = (Graphics2D) g_copy.create();
+            e.preRender(g_temp);
+            g_temp.dispose();
+        });
+    }
+
+    static void postRender(Graphics2D g_copy) {
+        InternalCanvas.renderLifecycles.forEach(e -> {
+            var g_temp = (Graphics2D) g_copy.create();
+            e.postRender(g_temp);
+            g_temp.dispose();
+        });
+    }
+
+    /**
+     * Draw the elements in {@code area}, copying in the cached layers instead of drawing their elements.
+     * Can be run for different areas at the same time.
+     *
+     * @param base    the transform {@code g} has
+     * @param hitBase the transform for the hitboxes, on the whole canvas, or {@code null} to leave them alone
+     */
+    void renderElements(Graphics2D g, AffineTransform base, AffineTransform hitBase, Rectangle area,
+                        List<Drawable<?>> failed) {
+        // elements come in drawing order, so all of a layer's elements are together
+        var copied = new LayerCache[1];
+        InternalCanvas.elements.foreachVisible(area, element -> {
+            var cache = cachedLayers.isEmpty() ? null : cachedLayers.get(element.getLayer());
+            // (a layer that was only just cached hasn't been drawn yet)
+            if (cache == null || cache.image == null) {
+                renderElement(g, base, hitBase, element, failed);
+                return;
+            }
+            if (copied[0] == cache) return;
+            copied[0] = cache;
+            var x = area.x + lastTx;
+            var y = area.y + lastTy;
+            g.drawImage(cache.image, area.x, area.y, area.x + area.width, area.y + area.height,
+                    x, y, x + area.width, y + area.height, null);
+        });
+    }
+
+    /**
+     * Draw the elements onto {@code target} (which already has the background) one tile at a time, with the tiles
+     * split between {@code threads} threads
+     */
+    void renderTiles(BufferedImage target, Graphics2D g_copy, Rectangle viewport, List<Drawable<?>> failed, int threads) {
+        // the lifecycles aren't expecting to be run from lots of threads, so they draw on the whole frame first
+        preRender(g_copy);
+
+        var width = target.getWidth();
+        var height = target.getHeight();
+        if (tilePool == null || tilePool.getParallelism() != threads) {
+            if (tilePool != null) stopTiles();
+            tilePool = new ForkJoinPool(threads);
+        }
+        var syncFailed = Collections.synchronizedList(failed);
+        var tiles = new ArrayList<Callable<Void>>();
+        for (var y = 0; y < height; y += TILE_SIZE) {
+            for (var x = 0; x < width; x += TILE_SIZE) {
+                var tile = new Rectangle(viewport.x + x, viewport.y + y,
+                        Math.min(TILE_SIZE, width - x), Math.min(TILE_SIZE, height - y));
+                tiles.add(() -> {
+                    renderTile(target, tile, syncFailed);
+                    return null;
+                });
+            }
+        }
+        tilePool.invokeAll(tiles);
+    }
+
+    /**
+     * Work out the hitboxes of the elements drawn by {@link #renderTiles}, on the frame thread
+     */
+    static void updateHitboxes(AffineTransform base, Rectangle viewport, List<Drawable<?>> failed) {
+        InternalCanvas.elements.foreachVisible(viewport, element -> {
+            try {
+                element.internalUpdateHitbox(base);
+            } catch (Exception e) {
+                e.printStackTrace();
+                failed.add(element);
+            }
+        });
+    }
+
+    // let go of the threads and scratch images once they aren't used anymore
+    void stopTiles() {
+        tilePool.shutdown();
+        tilePool = null;
+        tileScratch.clear();
+    }
+
+    void renderTile(BufferedImage target, Rectangle tile, List<Drawable<?>> failed) {
+        var scratch = tileScratch.poll();
+        if (scratch == null) scratch = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+
+        // start from what's already there (the background and the preRender lifecycles), draw the tile's elements
+        // clipped to the tile, then copy it back
+        var x = tile.x + lastTx;
+        var y = tile.y + lastTy;
+        scratch.getRaster().setRect(target.getRaster().createChild(x, y, tile.width, tile.height, 0, 0, null));
+        var sg = scratch.createGraphics();
+        sg.clipRect(0, 0, tile.width, tile.height);
+        sg.translate(lastTx - x, lastTy - y);
+        // the transform is moved to the tile, and elements on the edges are drawn by more than one thread, so the
+        // hitboxes are worked out afterwards
+        renderElements(sg, sg.getTransform(), null, tile, failed);
+        sg.dispose();
+        target.getRaster().setRect(x, y, scratch.getRaster().createChild(0, 0, tile.width, tile.height, 0, 0, null));
+
+        tileScratch.add(scratch);
+    }
+
+    static void renderElement(Graphics2D g, AffineTransform base, AffineTransform hitBase, Drawable<?> element,
+                              List<Drawable<?>> failed) {
+        try {
+            element.internalRender(g, base);
+            if (hitBase != null) element.internalUpdateHitbox(hitBase);
+        } catch (Exception e) {
+            // it might have stopped half way through
+            g.setTransform(base);
+            e.printStackTrace();
+            failed.add(element);
+        }
+    }
+
+    /**
+     * Bring a cached layer's image up to date, drawing again whatever changed on that layer since last time.
+     * Like the buffers, changed areas are drawn on the scratch image and copied over.
+     */
+    void updateLayer(int layer, LayerCache cache, int width, int height, Rectangle viewport, List<Drawable<?>> failed) {
+        if (cache.image == null || cache.image.getWidth() != width || cache.image.getHeight() != height) {
+            cache.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            cache.damage.addAll();
+        } else if (cache.tx != lastTx || cache.ty != lastTy) cache.damage.addAll();
+        cache.tx = lastTx;
+        cache.ty = lastTy;
+        if (cache.damage.isEmpty()) return;
+
+        var clear = new Color(0, 0, 0, 0);
+        var g = cache.image.createGraphics();
+        if (cache.damage.isFull()) {
+            g.setComposite(AlphaComposite.Src);
+            g.setColor(clear);
+            g.fillRect(0, 0, width, height);
+            g.setComposite(AlphaComposite.SrcOver);
+            g.translate(lastTx, lastTy);
+            var base = g.getTransform();
+            InternalCanvas.elements.foreachVisible(viewport, element -> {
+                if (element.getLayer() == layer) renderElement(g, base, base, element, failed);
+            });
+        } else {
+            var scratch = scratch(width, height);
+            var sg = scratch.createGraphics();
+            sg.translate(lastTx, lastTy);
+            var base = sg.getTransform();
+            g.setComposite(AlphaComposite.Src);
+            for (var area : cache.damage.getRects()) {
+                var x = area.x + lastTx;
+                var y = area.y + lastTy;
+                sg.setComposite(AlphaComposite.Src);
+                sg.setColor(clear);
+                sg.fillRect(area.x, area.y, area.width, area.height);
+                sg.setComposite(AlphaComposite.SrcOver);
+                InternalCanvas.elements.foreachVisible(area, element -> {
+                    if (element.getLayer() == layer) renderElement(sg, base, base, element, failed);
+                });
+                g.drawImage(scratch, x, y, x + area.width, y + area.height, x, y, x + area.width, y + area.height, null);
+            }
+            sg.dispose();
+        }
+        g.dispose();
+        cache.damage.clear();
+    }
+
+    /**
+     * Keep a layer drawn on an image of its own, see {@link Canvas#setLayerCached(int, boolean)}
+     *
+     * @param layer  the layer
+     * @param cached whether to cache it
+     */
+    public void setLayerCached(int layer, boolean cached) {
+        if (!cached) cachedLayers.remove(layer);
+        else cachedLayers.putIfAbsent(layer, new LayerCache());
+    }
+
+    /**
+     * @param layer the layer
+     * @return whether the layer is cached, see {@link Canvas#setLayerCached(int, boolean)}
+     */
+    public boolean isLayerCached(int layer) {
+        return cachedLayers.containsKey(layer);
+    }
+
+    void expireClicks() {
+        synchronized (InternalCanvas.mouseClickEvents) {
+            for (var event : InternalCanvas.mouseClickEvents) {
+                event.second--;
+            }
+            InternalCanvas.mouseClickEvents.removeIf(e -> e.second <= 0);
+
+            MouseEvent click = null;
+            for (var event : InternalCanvas.mouseClickEvents) {
+                if (event.first.getButton() == MouseEvent.BUTTON1) {
+                    click = event.first;
+                    break;
+                }
+            }
+            InternalCanvas.leftClick = click;
+        }
+    }
+
+    /**
+     * Draw everything again on the next frame, for {@link CanvasOptions#dirtyRegions}.
+     * Call this if something that isn't an element changes how the canvas looks, like a {@link RenderLifecycle}.
+     */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    static class LayerCache {
+        // the layer's elements, drawn with the translation it had then
+        BufferedImage image;
+        int tx, ty;
+        // what changed on the layer since the image was drawn
+        final DamageRegion damage = new DamageRegion();
+    }
+
+    BufferedImage discard() {
+        discardedFrames++;
+        // if atomic blocks keep getting in the way, make the next ones wait for a frame to get through
+        if (++discardedInARow >= MAX_DISCARDED_IN_A_ROW) ElementContainer.internalSetStarving(true);
+        return image;
+    }
+
+    /**
+     * Get a copy of the last rendered frame, which won't be drawn over by later frames.
+     * <pre>{@code
+     * BufferedImage frame = InternalCanvas.renderer.snapshot();
+     * ImageIO.write(frame, "png", new File("frame.png"));
+     * }</pre>
+     *
+     * @return a copy of {@link #image}, or {@code null} if nothing has been rendered yet
+     */
+    public BufferedImage snapshot() {
+        synchronized (bufferSync) {
+            if (image == null) return null;
+            var copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            image.copyData(copy.getRaster());
+            return copy;
+        }
+    }
+
+    /**
+     * Copy the last rendered image onto {@code gc}, running the {@code renderStart} and {@code renderEnd} lifecycles.
+     *
+     * @param gc the graphics context of whatever is showing the canvas
+     */
+    void present(Graphics2D gc) {
+        var gc_copy = (Graphics2D) gc.create();
+
+        InternalCanvas.renderLifecycles.forEach(e -> {
+            var gc_temp = (Graphics2D) gc_copy.create();
+            e.renderStart(gc_temp);
+            gc_temp.dispose();
+        });
+        gc.drawImage(
+                image,
+                0, 0,
+                null
+        );
+        InternalCanvas.renderLifecycles.forEach(e -> {
+            var gc_temp = (Graphics2D) gc_copy.create();
+            e.renderEnd(gc_temp);
+            gc_temp.dispose();
+        });
+        gc_copy.dispose();
+    }
+}
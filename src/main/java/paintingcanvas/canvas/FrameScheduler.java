@@ -0,0 +1,112 @@
+package paintingcanvas.canvas;
+
+import paintingcanvas.InternalCanvas;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * Decides when frames happen. Runs on its own thread, and on every tick it updates the frame counter and animations
+ * with {@link FrameRenderer#update()}, then asks for the frame to be painted.
+ * </p>
+ * <p>
+ * Ticks are scheduled against {@link System#nanoTime()} deadlines, so the time it takes to render doesn't push the
+ * following frames back. When a tick is late (the machine couldn't keep up) it counts as a missed deadline, and the
+ * {@link Policy} decides what to do about it.
+ * </p>
+ * <p>
+ * Painting is decoupled from updating: with a window it's just a {@link CanvasPanel#repaint()}, so if Swing merges
+ * a few repaints together the frame counter still keeps up with the clock.
+ * </p>
+ */
+public class FrameScheduler implements Runnable {
+    final Runnable paint;
+    final boolean paced;
+    final Policy policy;
+    final int maxCatchUp;
+    volatile long missedDeadlines = 0;
+    volatile long droppedFrames = 0;
+
+    /**
+     * @param paint      what to run once the frame has been updated
+     * @param paced      whether to wait for each frame's deadline, or run frames back to back
+     * @param policy     what to do with late frames
+     * @param maxCatchUp the most updates to run for a single paint, see {@link Policy#CatchUp}
+     */
+    FrameScheduler(Runnable paint, boolean paced, Policy policy, int maxCatchUp) {
+        this.paint = paint;
+        this.paced = paced;
+        this.policy = policy;
+        this.maxCatchUp = Math.max(1, maxCatchUp);
+    }
+
+    /**
+     * @return The number of ticks that started after their deadline
+     */
+    public long getMissedDeadlines() {
+        return missedDeadlines;
+    }
+
+    /**
+     * @return The number of ticks that were skipped entirely; their frames were never updated or painted
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    @Override
+    public void run() {
+        var renderer = InternalCanvas.renderer;
+        var period = 1_000_000_000L / InternalCanvas.options.fps;
+        var deadline = System.nanoTime();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            var now = System.nanoTime();
+            if (paced && now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                continue;
+            }
+
+            // how many ticks should have happened by now
+            var due = paced ? (now - deadline) / period + 1 : 1;
+            var updates = 1L;
+            if (due > 1) {
+                missedDeadlines += due - 1;
+                if (policy == Policy.CatchUp) updates = Math.min(due, maxCatchUp);
+                droppedFrames += due - updates;
+            }
+            deadline += due * period;
+
+            var render = false;
+            for (var i = 0; i < updates; i++) render = renderer.update();
+            if (render) paint.run();
+        }
+    }
+
+    /**
+     * Start ticking on a new thread
+     *
+     * @param daemon whether the thread should let the program exit without it
+     */
+    void start(boolean daemon) {
+        var thread = new Thread(this, "PaintingCanvas Frame Scheduler");
+        thread.setDaemon(daemon);
+        thread.start();
+    }
+
+    /**
+     * What to do when frames fall behind their deadlines
+     */
+    public enum Policy {
+        /**
+         * Run the update for every missed tick (up to {@link CanvasOptions#maxCatchUpFrames}) before painting once,
+         * so animations keep in time with the clock, at the cost of skipping some frames on screen.
+         */
+        CatchUp,
+        /**
+         * Forget about the missed ticks and carry on from now, so every update gets painted but animations slow down
+         * when rendering can't keep up.
+         */
+        Drop,
+    }
+}
@@ -0,0 +1,59 @@
+package paintingcanvas.canvas;
+
+import paintingcanvas.InternalCanvas;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * <p>
+ * Renders the canvas without ever opening a window, see {@link CanvasOptions#headless(boolean)}.
+ * </p>
+ * <p>
+ * Instead of waiting for Swing to call {@link CanvasPanel#paintComponent(Graphics)}, frames are rendered directly on
+ * the {@link FrameScheduler} thread, back to back as fast as they can be. Everything else (the elements, animations and
+ * {@link RenderLifecycle RenderLifecycles}) works exactly the same as with a window, so extensions like the
+ * {@link paintingcanvas.extensions.Recorder Recorder} can still be used.
+ * </p>
+ */
+public class HeadlessRenderer {
+    /**
+     * The image that stands in for the screen; what would be shown in the window, including anything drawn by
+     * {@link RenderLifecycle#renderStart(Graphics2D)} or {@link RenderLifecycle#renderEnd(Graphics2D)}.
+     */
+    public BufferedImage screen;
+
+    HeadlessRenderer() {
+    }
+
+    /**
+     * Update and render the next frame, on this thread.
+     * This is how frames happen with {@link CanvasOptions#manualFrames(boolean)}; otherwise the
+     * {@link FrameScheduler} is already doing it, so don't.
+     * <pre>{@code
+     * circle.animate().with(Animation.moveTo(300, 300), 10, TimeUnit.Frames);
+     * for (int i = 0; i < 10; i++) InternalCanvas.headless.nextFrame();
+     * }</pre>
+     */
+    public void nextFrame() {
+        if (InternalCanvas.renderer.update()) step();
+    }
+
+    /**
+     * Render the current frame
+     */
+    void step() {
+        var renderer = InternalCanvas.renderer;
+        var canvas = InternalCanvas.canvas;
+        var width = canvas.getWidth();
+        var height = canvas.getHeight();
+        renderer.render(width, height);
+
+        if (screen == null || screen.getWidth() != width || screen.getHeight() != height)
+            screen = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        var gc = screen.createGraphics();
+        gc.setClip(0, 0, width, height);
+        renderer.present(gc);
+        gc.dispose();
+    }
+}
@@ -32,7 +32,7 @@ public interface RenderLifecycle {
     }
 
     /**
-     * Runs before everything else; the {@code image} in {@link CanvasPanel} will
+     * Runs before everything else; the {@code image} in {@link FrameRenderer} will
      * reflect your changes.
      *
      * @param g The graphics context
@@ -41,7 +41,7 @@ public interface RenderLifecycle {
     }
 
     /**
-     * Runs after everything else; the {@code image} in {@link CanvasPanel} will
+     * Runs after everything else; the {@code image} in {@link FrameRenderer} will
      * reflect your changes.
      *
      * @param g The graphics context
@@ -50,7 +50,7 @@ public interface RenderLifecycle {
     }
 
     /**
-     * Runs after everything else; the {@code image} in {@link CanvasPanel} will
+     * Runs after everything else; the {@code image} in {@link FrameRenderer} will
      * not reflect your changes.
      *
      * @param g The graphics context
@@ -59,7 +59,7 @@ public interface RenderLifecycle {
     }
 
     /**
-     * Runs before everything else; the {@code image} in {@link CanvasPanel} will
+     * Runs before everything else; the {@code image} in {@link FrameRenderer} will
      * not reflect your changes.
      *
      * @param g The graphics context
@@ -20,7 +20,8 @@ public interface Anchorable<T extends Drawable<T>> extends Drawable<T>, Position
      * @return the original object to allow method chaining
      */
     default T setAnchor(Anchor anchor) {
-        ElementContainer.atomic(() -> internalSetAnchor(anchor));
+        internalSetAnchor(anchor);
+        ElementContainer.publish();
         return getThis();
     }
 }
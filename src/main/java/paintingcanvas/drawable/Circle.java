@@ -3,7 +3,7 @@ package paintingcanvas.drawable;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 
 /**
  * A Circle element.
@@ -87,18 +87,24 @@ public class Circle extends DrawableBase.InteractableShape<Circle> {
     }
 
     @Override
-    void postTransform(AffineTransform transform) {
-        transform.translate(-radius * anchor.x * 2, -radius * anchor.y * 2);
+    double offsetX() {
+        return -radius * anchor.x * 2;
     }
 
     @Override
-    boolean intersectsInDrawSpace(Point pos) {
-        return pos.x * pos.x + pos.y * pos.y <= radius * radius;
+    double offsetY() {
+        return -radius * anchor.y * 2;
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return getPos();
+    boolean intersectsInDrawSpace(int x, int y) {
+        return x * x + y * y <= radius * radius;
+    }
+
+    @Override
+    Rectangle2D drawBounds() {
+        localBounds.setRect(-radius, -radius, radius * 2, radius * 2);
+        return localBounds;
     }
 
     @Override
@@ -125,6 +131,7 @@ public class Circle extends DrawableBase.InteractableShape<Circle> {
      */
     public Circle setRadius(int r) {
         this.radius = r;
+        changed();
         return this;
     }
 }
\ No newline at end of file
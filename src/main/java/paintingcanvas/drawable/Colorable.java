@@ -1,5 +1,6 @@
 package paintingcanvas.drawable;
 
+import paintingcanvas.misc.ColorCache;
 import paintingcanvas.misc.ElementContainer;
 import paintingcanvas.misc.Hue;
 import paintingcanvas.misc.Misc;
@@ -16,6 +17,20 @@ import java.awt.*;
 public interface Colorable<T extends Drawable<T>> extends Drawable<T> {
     void internalSetColor(Color color);
 
+    /**
+     * Set the color as a packed ARGB int ({@code 0xAARRGGBB}), without needing a {@link Color}. Used by animations.
+     */
+    default void internalSetArgb(int argb) {
+        internalSetColor(ColorCache.get(argb));
+    }
+
+    /**
+     * @return the color as a packed ARGB int ({@code 0xAARRGGBB}), see {@link #internalSetArgb(int)}
+     */
+    default int internalGetArgb() {
+        return getColor().getRGB();
+    }
+
     /**
      * Get the current color of an element as a {@link Color}
      *
@@ -34,7 +49,8 @@ public interface Colorable<T extends Drawable<T>> extends Drawable<T> {
      * @return the original object to allow method chaining
      */
     default T setColor(Color color) {
-        ElementContainer.atomic(() -> internalSetColor(color));
+        internalSetColor(color);
+        ElementContainer.publish();
         return getThis();
     }
 
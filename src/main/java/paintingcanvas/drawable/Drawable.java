@@ -6,6 +6,7 @@ import paintingcanvas.animation.AnimationBuilder;
 import paintingcanvas.misc.ElementContainer;
 
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 
 /**
  * An interface to connect to any objects that can be considered "painter.drawable.Drawable".
@@ -40,6 +41,82 @@ public interface Drawable<T extends Drawable<T>> extends Animatable {
      */
     void render(Graphics2D g);
 
+    /**
+     * Like {@link #render(Graphics2D)}, for the renderer, which already knows the transform {@code g} has.
+     * {@code g} is left with that transform afterwards.
+     *
+     * @param g    the graphics context to draw the object with
+     * @param base the transform {@code g} has (not a copy, don't modify it!)
+     */
+    default void internalRender(Graphics2D g, AffineTransform base) {
+        render(g);
+    }
+
+    /**
+     * Work out where this was drawn by {@link #internalRender(Graphics2D, AffineTransform)}, for hit-testing.
+     * The renderer calls this from the frame thread, once it's drawn.
+     *
+     * @param base the transform it was drawn with, on the whole canvas (not a copy, don't modify it!)
+     */
+    default void internalUpdateHitbox(AffineTransform base) {
+    }
+
+    /**
+     * Get the area of the canvas this object covers: its bounding box after it's been positioned and rotated.
+     * <pre>{@code
+     * Rectangle r = new Rectangle(100, 100, 50, 20);
+     * java.awt.Rectangle bounds = r.getBounds();
+     * }</pre>
+     *
+     * @return the bounding box in canvas coordinates, as of the last frame,
+     * or {@code null} if it isn't known (e.g. the object is hidden)
+     */
+    java.awt.Rectangle getBounds();
+
+    /**
+     * Recalculate the bounding box from the object's current state.
+     * Called by the {@link ElementContainer} once a frame.
+     *
+     * @return the bounding box in canvas coordinates (not a copy, don't modify it!),
+     * or {@code null} if it isn't known
+     */
+    java.awt.Rectangle internalUpdateBounds();
+
+    /**
+     * A number that changes whenever something about how the object looks changes, so the renderer can tell which
+     * objects need to be drawn again (see {@link paintingcanvas.canvas.CanvasOptions#dirtyRegions}).
+     * The {@code set} and {@code internalSet} methods take care of this.
+     *
+     * @return the version
+     */
+    int internalGetVersion();
+
+    /**
+     * Called by the {@link ElementContainer} right before it measures this object. After that, the object has to
+     * {@link ElementContainer#internalMarkDirty(Drawable) mark itself} again when it changes, or it won't be measured
+     * again.
+     *
+     * @return whether it was marked since the last time this was called
+     */
+    boolean internalTakeDirty();
+
+    /**
+     * Whether this can be changed without going through a setter (like {@link Text#text}), so the
+     * {@link ElementContainer} has to call {@link #internalCheckChanged()} on it every frame.
+     *
+     * @return whether to check it every frame
+     */
+    default boolean internalPolled() {
+        return false;
+    }
+
+    /**
+     * Look for changes that didn't go through a setter, and mark this as changed if there are any.
+     * Called by the {@link ElementContainer} once a frame, if {@link #internalPolled()}.
+     */
+    default void internalCheckChanged() {
+    }
+
     T getThis();
 
     /**
@@ -66,6 +143,18 @@ public interface Drawable<T extends Drawable<T>> extends Animatable {
      */
     T show();
 
+    /**
+     * Check if the object is shown.
+     * <pre>{@code
+     * Circle o = new Circle(100, 100, 20);
+     * o.hide();
+     * System.out.println(o.isVisible()); // false
+     * }</pre>
+     *
+     * @return false if the object has been {@link #hide() hidden}
+     */
+    boolean isVisible();
+
     /**
      * Gets the current layer of the object.
      * By default, all objects are on layer 0.
@@ -87,10 +176,7 @@ public interface Drawable<T extends Drawable<T>> extends Animatable {
      * @see #sendToBack()
      */
     default T setLayer(int layer) {
-        ElementContainer.atomic(() -> {
-            internalSetLayer(layer);
-            InternalCanvas.elements.setDirty();
-        });
+        InternalCanvas.elements.setLayer(this, layer);
         return getThis();
     }
 
@@ -125,10 +211,7 @@ public interface Drawable<T extends Drawable<T>> extends Animatable {
      * </p>
      */
     default void erase() {
-        ElementContainer.atomic(() -> {
-            InternalCanvas.elements.remove(this);
-            InternalCanvas.elements.setDirty();
-        });
+        InternalCanvas.elements.remove(this);
     }
 
     /**
@@ -3,81 +3,300 @@ package paintingcanvas.drawable;
 import paintingcanvas.InternalCanvas;
 import paintingcanvas.canvas.CanvasNotInitializedException;
 import paintingcanvas.misc.Anchor;
+import paintingcanvas.misc.ColorCache;
 import paintingcanvas.misc.ElementContainer;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>, Positionable<T>, Colorable<T> {
     int layer = 0;
     boolean visible = true;
     double rotation;
-    Color color;
+    /**
+     * Packed ARGB, see {@link ColorCache}
+     */
+    int color;
     int x;
     int y;
-    AffineTransform transform;
+    /**
+     * Filled in by {@link #drawBounds()}, instead of making a new rectangle every frame
+     */
+    final Rectangle2D.Double localBounds = new Rectangle2D.Double();
+    // only used by internalUpdateBounds
+    final AffineTransform boundsTransform = new AffineTransform();
+    /**
+     * The bounding box on the canvas, see {@link #internalUpdateBounds()}
+     */
+    final java.awt.Rectangle bounds = new java.awt.Rectangle();
+    boolean boundsKnown = false;
+    /**
+     * See {@link #internalGetVersion()}
+     */
+    int version = 0;
+    // set when it changes, until the ElementContainer measures it again
+    final AtomicBoolean dirty = new AtomicBoolean();
+    /**
+     * Like {@link #version}, but not changed by moving or rotating, see {@link Sprite}
+     */
+    int appearance = 0;
+    Sprite sprite;
 
     public DrawableBase(int x, int y, Color color) {
         this.x = x;
         this.y = y;
-        this.color = color;
+        this.color = color.getRGB();
 
         if (!InternalCanvas.initialized) {
             throw new CanvasNotInitializedException();
         }
 
         if (InternalCanvas.options.autoAdd) {
-            ElementContainer.atomic(() -> InternalCanvas.elements.add(this));
+            InternalCanvas.elements.add(this);
         }
     }
 
     @Override
     public void internalSetLayer(int layer) {
         this.layer = layer;
+        this.bumpVersion();
+    }
+
+    @Override
+    public int internalGetVersion() {
+        return version;
+    }
+
+    /**
+     * Change the {@link #version}, and have the canvas measure this again on the next frame
+     */
+    void bumpVersion() {
+        this.version++;
+        remeasure();
+    }
+
+    /**
+     * Have the canvas measure this again on the next frame, without changing the version
+     */
+    void remeasure() {
+        // (getAndSet, so the changes before this are seen by whoever takes it off the list)
+        if (!this.dirty.getAndSet(true)) ElementContainer.internalMarkDirty(this);
+    }
+
+    @Override
+    public boolean internalTakeDirty() {
+        return this.dirty.getAndSet(false);
+    }
+
+    /**
+     * Call after changing how this looks in a setter that doesn't go through an {@code internalSet} method
+     */
+    void changed() {
+        this.bumpVersion();
+        this.appearance++;
+        ElementContainer.publish();
     }
 
     @Override
     public void render(Graphics2D g) {
+        var base = g.getTransform();
+        internalRender(g, base);
+        internalUpdateHitbox(base);
+    }
+
+    @Override
+    public void internalRender(Graphics2D g, AffineTransform base) {
         if (!this.visible) return;
-        var save = g.getTransform();
-        var transform = g.getTransform();
+        // outlines change the stroke, which changes how the next element's fill comes out too
+        var saveStroke = g.getStroke();
+
+        if (this.sprite == null || !this.sprite.render(g, base)) {
+            // the same steps as applyTransform, straight onto g
+            g.rotate(this.rotation, this.centerX(), this.centerY());
+            g.translate((double) this.x, this.y);
+            g.translate(this.offsetX(), this.offsetY());
+            this.draw(g);
+        }
+
+        g.setTransform(base);
+        g.setStroke(saveStroke);
+    }
 
-        var center = this.center(g);
-        transform.rotate(this.rotation, center.x, center.y);
+    /**
+     * Keep this element drawn on an image of its own (a sprite), and just copy that onto the canvas while the element
+     * is only moved around. It's only drawn again when how it looks changes (like its color, size or outline), or
+     * when it's rotated (see {@link paintingcanvas.canvas.CanvasOptions#spriteRotationTolerance}).
+     * <p>
+     * This is worth it for elements that take a while to draw, like long {@link Path}s, {@link Polygon}s with lots of
+     * points, {@link Text} and outlined shapes, that move around a lot more than they change.
+     * <pre>{@code
+     * Path tile = new Path().cursorTo(0, 0).quadTo(20, 40, 40, 0).setSpriteCached(true);
+     * }</pre>
+     *
+     * @param cached whether to draw this from a sprite
+     * @return The original object to allow method chaining
+     */
+    public T setSpriteCached(boolean cached) {
+        if (cached == (this.sprite != null)) return getThis();
+        this.sprite = cached ? new Sprite(this) : null;
+        return getThis();
+    }
+
+    /**
+     * @return whether this is drawn from a sprite, see {@link #setSpriteCached(boolean)}
+     */
+    public boolean isSpriteCached() {
+        return this.sprite != null;
+    }
+
+    /**
+     * Add this element's rotation, position and {@link #offsetX()} / {@link #offsetY()} onto {@code transform}, giving
+     * the coordinate space of the {@link #draw(Graphics2D)} call.
+     */
+    void applyTransform(AffineTransform transform) {
+        transform.rotate(this.rotation, this.centerX(), this.centerY());
         transform.translate(this.x, this.y);
-        this.postTransform(transform);
+        transform.translate(this.offsetX(), this.offsetY());
+    }
 
-        g.setTransform(transform);
-        this.transform = transform;
+    /**
+     * How far to move the drawing after rotating it and moving it to the element's position, like to line its anchor
+     * up with the position.
+     */
+    double offsetX() {
+        return 0;
+    }
 
-        this.draw(g);
+    /**
+     * See {@link #offsetX()}
+     */
+    double offsetY() {
+        return 0;
+    }
 
-        g.setTransform(save);
+    /**
+     * The X-position of the point this is rotated around, see {@link #center(Graphics2D)}
+     */
+    int centerX() {
+        return this.x;
     }
 
     /**
-     * Modify the transform of the graphics context after rotating / translating from the Drawable's position and
-     * rotation.
+     * The Y-position of the point this is rotated around, see {@link #center(Graphics2D)}
      */
-    void postTransform(AffineTransform transform) {
+    int centerY() {
+        return this.y;
+    }
+
+    @Override
+    public Point center(Graphics2D g) {
+        return new Point(this.centerX(), this.centerY());
     }
 
     abstract void draw(Graphics2D g);
 
+    /**
+     * The area that {@link #draw(Graphics2D)} draws over, in the same coordinate space as the draw call.
+     * Doesn't need to include outlines, see {@link #boundsPadding()}. Only read until the next call, so it can be
+     * {@link #localBounds} filled in again.
+     *
+     * @return the area, or {@code null} if it isn't known (the element will always be drawn)
+     */
+    Rectangle2D drawBounds() {
+        return null;
+    }
+
+    /**
+     * How much further than {@link #drawBounds()} anything could be drawn, like the width of an outline.
+     */
+    double boundsPadding() {
+        return 0;
+    }
+
+    /**
+     * Pad the bounds enough to fit any stroke drawn with {@code stroke}
+     */
+    static double strokePadding(Stroke stroke) {
+        if (stroke == null) return 0;
+        if (!(stroke instanceof BasicStroke)) return 10;
+
+        // outlines go halfway out from the shape, but mitered corners can stick out a lot further than that
+        var basic = (BasicStroke) stroke;
+        var half = basic.getLineWidth() / 2;
+        if (basic.getLineJoin() == BasicStroke.JOIN_MITER) return half * Math.max(basic.getMiterLimit(), 1.5);
+        return half * 1.5;
+    }
+
+    @Override
+    public java.awt.Rectangle getBounds() {
+        return boundsKnown ? new java.awt.Rectangle(bounds) : null;
+    }
+
+    @Override
+    public java.awt.Rectangle internalUpdateBounds() {
+        var local = this.visible ? this.drawBounds() : null;
+        if (local == null) {
+            boundsKnown = false;
+            return null;
+        }
+
+        var transform = this.boundsTransform;
+        transform.setToIdentity();
+        this.applyTransform(transform);
+        transformBounds(transform, local, this.boundsPadding(), bounds);
+        boundsKnown = true;
+        return bounds;
+    }
+
+    /**
+     * Transform all four corners of {@code local} (made bigger by {@code pad} on every side), and set {@code out} to
+     * the pixels around them, with an extra pixel on every side for antialiasing.
+     */
+    static void transformBounds(AffineTransform transform, Rectangle2D local, double pad, java.awt.Rectangle out) {
+        var x0 = local.getMinX() - pad;
+        var y0 = local.getMinY() - pad;
+        var x1 = local.getMaxX() + pad;
+        var y1 = local.getMaxY() + pad;
+
+        // the same sums as AffineTransform.transform, without an array for the corners
+        double m00 = transform.getScaleX(), m01 = transform.getShearX(), m02 = transform.getTranslateX();
+        double m10 = transform.getShearY(), m11 = transform.getScaleY(), m12 = transform.getTranslateY();
+        double ax = m00 * x0 + m01 * y0 + m02, ay = m10 * x0 + m11 * y0 + m12;
+        double bx = m00 * x1 + m01 * y0 + m02, by = m10 * x1 + m11 * y0 + m12;
+        double cx = m00 * x1 + m01 * y1 + m02, cy = m10 * x1 + m11 * y1 + m12;
+        double dx = m00 * x0 + m01 * y1 + m02, dy = m10 * x0 + m11 * y1 + m12;
+        var minX = Math.min(Math.min(ax, bx), Math.min(cx, dx));
+        var maxX = Math.max(Math.max(ax, bx), Math.max(cx, dx));
+        var minY = Math.min(Math.min(ay, by), Math.min(cy, dy));
+        var maxY = Math.max(Math.max(ay, by), Math.max(cy, dy));
+
+        var left = (int) Math.floor(minX) - 1;
+        var top = (int) Math.floor(minY) - 1;
+        out.setBounds(left, top, (int) Math.ceil(maxX) + 1 - left, (int) Math.ceil(maxY) + 1 - top);
+    }
+
     @Override
     public T hide() {
         visible = false;
+        changed();
         return getThis();
     }
 
     @Override
     public T show() {
         visible = true;
+        changed();
         return getThis();
     }
 
+    @Override
+    public boolean isVisible() {
+        return visible;
+    }
+
     @Override
     public int getLayer() {
         return this.layer;
@@ -87,6 +306,7 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
     public void internalSetPos(int x, int y) {
         this.x = x;
         this.y = y;
+        this.bumpVersion();
     }
 
     @Override
@@ -97,6 +317,7 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
     @Override
     public void internalSetRotation(double rotation) {
         this.rotation = rotation;
+        this.bumpVersion();
     }
 
     @Override
@@ -111,17 +332,30 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
 
     @Override
     public void internalSetColor(Color color) {
-        this.color = color;
+        internalSetArgb(color.getRGB());
     }
 
     @Override
-    public Color getColor() {
+    public void internalSetArgb(int argb) {
+        if (this.color == argb) return;
+        this.color = argb;
+        this.bumpVersion();
+        this.appearance++;
+    }
+
+    @Override
+    public int internalGetArgb() {
         return this.color;
     }
 
+    @Override
+    public Color getColor() {
+        return ColorCache.get(this.color);
+    }
+
     public abstract static class OutlineableDrawableBase<T extends Drawable<T>> extends DrawableBase<T> implements Outlineable<T> {
         Stroke outlineStroke = null;
-        Color outlineColor = Color.BLACK;
+        int outlineColor = 0xff000000;
         boolean filled = true;
 
         public OutlineableDrawableBase(int x, int y, Color color) {
@@ -131,12 +365,12 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
         @Override
         void draw(Graphics2D g) {
             if (this.filled) {
-                g.setColor(this.color);
+                g.setColor(ColorCache.get(this.color));
                 this.drawFill(g);
             }
             if (this.outlineStroke != null) {
                 g.setStroke(this.outlineStroke);
-                g.setColor(this.outlineColor);
+                g.setColor(ColorCache.get(this.outlineColor));
                 this.drawOutline(g);
             }
         }
@@ -145,21 +379,41 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
 
         abstract void drawOutline(Graphics2D g);
 
+        @Override
+        double boundsPadding() {
+            return strokePadding(this.outlineStroke);
+        }
+
         @Override
         public void internalSetOutlineStroke(Stroke stroke) {
             this.outlineStroke = stroke;
+            this.bumpVersion();
+            this.appearance++;
         }
 
         @Override
         public void internalSetOutlineColor(Color color) {
-            this.outlineColor = color;
+            internalSetOutlineArgb(color.getRGB());
         }
 
         @Override
-        public Color getOutlineColor() {
+        public void internalSetOutlineArgb(int argb) {
+            if (this.outlineColor == argb) return;
+            this.outlineColor = argb;
+            this.bumpVersion();
+            this.appearance++;
+        }
+
+        @Override
+        public int internalGetOutlineArgb() {
             return this.outlineColor;
         }
 
+        @Override
+        public Color getOutlineColor() {
+            return ColorCache.get(this.outlineColor);
+        }
+
         @Override
         public Stroke getOutlineStroke() {
             return this.outlineStroke;
@@ -168,6 +422,8 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
         @Override
         public void internalSetFilled(boolean filled) {
             this.filled = filled;
+            this.bumpVersion();
+            this.appearance++;
         }
     }
 
@@ -181,6 +437,8 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
         @Override
         public void internalSetAnchor(Anchor anchor) {
             this.anchor = anchor;
+            this.bumpVersion();
+            this.appearance++;
         }
 
         @Override
@@ -190,54 +448,70 @@ public abstract class DrawableBase<T extends Drawable<T>> implements Drawable<T>
     }
 
     public abstract static class InteractableShape<T extends Drawable<T>> extends Shape<T> implements Interactable {
+        /**
+         * Where this was last drawn, for hit-testing. It's one of {@link #hitboxes}, which take turns so the one that's
+         * being read isn't filled in again until it's drawn somewhere new twice.
+         */
+        Hitbox hitbox;
+        final Hitbox[] hitboxes = {new Hitbox(), new Hitbox()};
+        // the last answer to hovered(), and the mouse position and hitbox it was worked out from
+        boolean hover;
+        Point hoverMouse;
+        int hoverSerial;
+        MouseEvent handled = null;
+
         public InteractableShape(int x, int y, Color color) {
             super(x, y, color);
         }
 
         @Override
-        public boolean intersects(Point pos) {
-            if (this.transform == null || pos == null)
-                return false;
-
-            var tPos = new Point();
+        public void internalUpdateHitbox(AffineTransform base) {
+            if (!this.visible) return;
+            var last = this.hitbox;
+            var next = last == this.hitboxes[0] ? this.hitboxes[1] : this.hitboxes[0];
+            if (next.update(this, base, last)) this.hitbox = next;
+        }
 
-            try {
-                transform.inverseTransform(pos, tPos);
-            } catch (NoninvertibleTransformException e) {
-                return false;
-            }
+        @Override
+        public boolean intersects(Point pos) {
+            return pos != null && intersects(this.hitbox, pos.x, pos.y);
+        }
 
-            return intersectsInDrawSpace(tPos);
+        boolean intersects(Hitbox hitbox, int x, int y) {
+            if (hitbox == null || !hitbox.mayContain(x, y)) return false;
+            return intersectsInDrawSpace(hitbox.localX(x, y), hitbox.localY(x, y));
         }
 
         /**
          * Check if the point intersects with the element in the same coordinate space as the {@link #draw(Graphics2D)}
          * call.
          */
-        abstract boolean intersectsInDrawSpace(Point pos);
+        abstract boolean intersectsInDrawSpace(int x, int y);
 
         @Override
         public boolean hovered() {
-            if (!InternalCanvas.initialized) {;
+            if (!InternalCanvas.initialized) {
                 throw new CanvasNotInitializedException();
             }
-            return intersects(InternalCanvas.canvas.getMousePos());
+            var mouse = InternalCanvas.canvas.getMousePos();
+            var hitbox = this.hitbox;
+            if (mouse == null || hitbox == null) return false;
+
+            // the mouse only moves, and this only gets drawn somewhere new, once a frame
+            if (mouse != hoverMouse || hitbox.serial != hoverSerial) {
+                hover = intersects(hitbox, mouse.x, mouse.y);
+                hoverMouse = mouse;
+                hoverSerial = hitbox.serial;
+            }
+            return hover;
         }
 
-        MouseEvent handled = null;
-
         @Override
         public boolean clicked() {
-            synchronized (InternalCanvas.mouseClickEvents) {
-                var opt = InternalCanvas.mouseClickEvents.stream()
-                        .filter(e -> e.first.getButton() == MouseEvent.BUTTON1)
-                        .findFirst();
-                if (opt.isPresent() && handled != opt.get().first) {
-                    handled = opt.get().first;
-                    return intersects(handled.getPoint());
-                }
-            }
-            return false;
+            var click = InternalCanvas.leftClick;
+            if (click == null || click == handled) return false;
+            handled = click;
+            return intersects(this.hitbox, click.getX(), click.getY());
         }
     }
 }
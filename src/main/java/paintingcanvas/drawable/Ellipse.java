@@ -3,7 +3,7 @@ package paintingcanvas.drawable;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 
 /**
  * An <a href="https://en.wikipedia.org/wiki/Ellipse">ellipse</a> element.
@@ -92,20 +92,26 @@ public class Ellipse extends DrawableBase.InteractableShape<Ellipse> {
     }
 
     @Override
-    void postTransform(AffineTransform transform) {
-        transform.translate(-width * anchor.x, -height * anchor.y);
+    double offsetX() {
+        return -width * anchor.x;
     }
 
     @Override
-    boolean intersectsInDrawSpace(Point pos) {
+    double offsetY() {
+        return -height * anchor.y;
+    }
+
+    @Override
+    boolean intersectsInDrawSpace(int x, int y) {
         var rx = width * 0.5;
         var ry = height * 0.5;
-        return ((pos.x * pos.x) / (rx * rx) + (pos.y * pos.y) / (ry * ry)) <= 1;
+        return ((x * x) / (rx * rx) + (y * y) / (ry * ry)) <= 1;
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return getPos();
+    Rectangle2D drawBounds() {
+        localBounds.setRect((int) (width * -0.5), (int) (height * -0.5), width, height);
+        return localBounds;
     }
 
     @Override
@@ -134,6 +140,7 @@ public class Ellipse extends DrawableBase.InteractableShape<Ellipse> {
      */
     public Ellipse setWidth(int w) {
         width = w;
+        changed();
         return this;
     }
 
@@ -158,6 +165,7 @@ public class Ellipse extends DrawableBase.InteractableShape<Ellipse> {
      */
     public Ellipse setHeight(int h) {
         height = h;
+        changed();
         return this;
     }
 }
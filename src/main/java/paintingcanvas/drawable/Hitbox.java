@@ -0,0 +1,76 @@
+package paintingcanvas.drawable;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+
+/**
+ * <p>
+ * Where an {@link DrawableBase.InteractableShape} was last drawn, worked out once when it's drawn (and only when it was
+ * drawn somewhere new) so that checking points against it, like the mouse on every frame, doesn't have to undo its
+ * transform every time.
+ * </p>
+ * <p>
+ * Points outside the box around it on the screen are turned away straight away; the rest are moved into the
+ * element's own coordinates with the inverse of its transform, for the exact check.
+ * </p>
+ */
+final class Hitbox {
+    final AffineTransform transform = new AffineTransform();
+    final AffineTransform inverse = new AffineTransform();
+    boolean invertible;
+    // the pixels around it on the screen, if its size is known
+    final java.awt.Rectangle area = new java.awt.Rectangle();
+    boolean areaKnown;
+    // the element's version when it was drawn, and how many times it had been drawn somewhere new before
+    int version;
+    int serial;
+
+    /**
+     * Fill this in from where {@code drawable} is drawn on graphics with the transform {@code base}
+     *
+     * @param last the hitbox from the last time it was drawn, or {@code null}
+     * @return false if it was drawn in the same place as {@code last}, so that one can be kept
+     */
+    boolean update(DrawableBase<?> drawable, AffineTransform base, Hitbox last) {
+        var version = drawable.version;
+        transform.setTransform(base);
+        drawable.applyTransform(transform);
+        if (last != null && last.version == version && last.transform.equals(transform)) return false;
+
+        this.version = version;
+        this.serial = last == null ? 0 : last.serial + 1;
+        inverse.setTransform(transform);
+        try {
+            inverse.invert();
+            invertible = true;
+        } catch (NoninvertibleTransformException e) {
+            invertible = false;
+        }
+        var local = drawable.drawBounds();
+        areaKnown = local != null;
+        if (areaKnown) DrawableBase.transformBounds(transform, local, drawable.boundsPadding(), area);
+        return true;
+    }
+
+    /**
+     * @return false if the point is definitely not on the element, without undoing its transform
+     */
+    boolean mayContain(int x, int y) {
+        return invertible && (!areaKnown || area.contains(x, y));
+    }
+
+    /**
+     * The X-position of a point on the screen in the element's coordinates, rounded like
+     * {@link java.awt.Point#setLocation(double, double)}
+     */
+    int localX(int x, int y) {
+        return (int) Math.floor(inverse.getScaleX() * x + inverse.getShearX() * y + inverse.getTranslateX() + 0.5);
+    }
+
+    /**
+     * See {@link #localX(int, int)}
+     */
+    int localY(int x, int y) {
+        return (int) Math.floor(inverse.getShearY() * x + inverse.getScaleY() * y + inverse.getTranslateY() + 0.5);
+    }
+}
@@ -1,16 +1,26 @@
 package paintingcanvas.drawable;
 
-import javax.imageio.ImageIO;
+import paintingcanvas.InternalCanvas;
+import paintingcanvas.misc.ElementContainer;
+import paintingcanvas.misc.ImageCache;
+
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
+import java.io.FileNotFoundException;
+import java.util.concurrent.CompletionException;
 
 /**
  * <p>
  * Draws an image from the specified path.
  * </p>
  * <p>
+ * The image is loaded in the background (see {@link ImageCache}), and nothing is drawn until it's ready. Once it is,
+ * it's handed to the frame loop and shows up on the next frame. If it can't be loaded, {@link #isFailed()} says why.
+ * Images made from the same file share one copy of it.
+ * </p>
+ * <p>
  * TODO: The color should be used as a tint for the image
  * </p>
  *
@@ -22,7 +32,14 @@ import java.io.IOException;
  * }</pre>
  */
 public class Image extends DrawableBase.Shape<Image> {
-    BufferedImage image;
+    final String src;
+    // null until it's loaded, set after the size so the size is always right for it
+    volatile BufferedImage image;
+    // a copy of the image at the size it's drawn at, once that's loaded
+    volatile BufferedImage scaled;
+    // why it couldn't be loaded, if it couldn't
+    volatile RuntimeException error;
+    double scaleX = 1, scaleY = 1;
     int width, height;
 
     /**
@@ -31,17 +48,49 @@ public class Image extends DrawableBase.Shape<Image> {
      * @param x   The X-position of the image
      * @param y   The Y-position of the image
      * @param src The path to the image file
+     * @throws RuntimeException if there's no file at {@code src} (if it's there but can't be loaded, see
+     *                          {@link #isFailed()})
      */
     public Image(int x, int y, String src) {
         super(x, y, Color.BLACK);
-        try {
-            image = ImageIO.read(new File(src));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        width = image.getWidth();
-        height = image.getHeight();
+        if (!new File(src).isFile()) throw new RuntimeException(new FileNotFoundException(src));
+        this.src = src;
+        // the decoder threads only keep the error, the frame loop applies the image
+        ImageCache.load(src).whenComplete((image, error) -> {
+            if (error != null) failed(error);
+            else InternalCanvas.frameTasks.add(() -> loaded(image));
+        });
+    }
+
+    /**
+     * @return Whether the image has been loaded, and is being drawn
+     * @see #isFailed()
+     */
+    public boolean isLoaded() {
+        return this.image != null;
+    }
+
+    /**
+     * Check if the image couldn't be loaded, like if the file isn't an image. It's never drawn then.
+     * <pre>{@code
+     * Image img = new Image(0, 0, "notes.txt");
+     * canvas.sleep(1);
+     * if (img.isFailed()) System.out.println(img.getError().getMessage());
+     * }</pre>
+     *
+     * @return Whether loading the image failed
+     * @see #getError()
+     */
+    public boolean isFailed() {
+        return this.error != null;
+    }
+
+    /**
+     * @return Why the image couldn't be loaded, or {@code null} if it's loaded or still loading
+     * @see #isFailed()
+     */
+    public RuntimeException getError() {
+        return this.error;
     }
 
     /**
@@ -57,21 +106,57 @@ public class Image extends DrawableBase.Shape<Image> {
      * @return The original object to allow method chaining
      */
     public Image setScale(double x, double y) {
-        this.width = (int) (image.getWidth() * x);
-        this.height = (int) (image.getHeight() * y);
+        ElementContainer.atomic(() -> {
+            this.scaleX = x;
+            this.scaleY = y;
+            var image = this.image;
+            if (image != null) resize(image);
+            changed();
+        });
         return this;
     }
 
+    void failed(Throwable error) {
+        // the decoders' exceptions come wrapped up by the future
+        if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+        this.error = error instanceof RuntimeException ? (RuntimeException) error : new RuntimeException(error);
+    }
+
+    // these run in an atomic block, either on the frame loop or in setScale
+    void loaded(BufferedImage image) {
+        resize(image);
+        this.image = image;
+        changed();
+    }
+
+    void resize(BufferedImage image) {
+        var width = this.width = (int) (image.getWidth() * scaleX);
+        var height = this.height = (int) (image.getHeight() * scaleY);
+        if (width <= 0 || height <= 0 || width == image.getWidth() && height == image.getHeight()) return;
+
+        // until the copy at this size is ready, the image is stretched while it's drawn
+        ImageCache.load(src, width, height).thenAccept(scaled -> InternalCanvas.frameTasks.add(() -> {
+            // the scale might have changed again while it was loading
+            if (scaled.getWidth() != this.width || scaled.getHeight() != this.height) return;
+            this.scaled = scaled;
+            changed();
+        }));
+    }
+
+    @Override
+    void draw(Graphics2D g) {
+        if (this.image == null) return;
+        super.draw(g);
+    }
+
     @Override
     void drawFill(Graphics2D g) {
-        g.drawImage(
-                image,
-                (int) (width * (-0.5 - anchor.x)),
-                (int) (height * (-0.5 - anchor.y)),
-                width,
-                height,
-                null
-        );
+        var x = (int) (width * (-0.5 - anchor.x));
+        var y = (int) (height * (-0.5 - anchor.y));
+        var scaled = this.scaled;
+        if (scaled != null && scaled.getWidth() == width && scaled.getHeight() == height)
+            g.drawImage(scaled, x, y, null);
+        else g.drawImage(image, x, y, width, height, null);
     }
 
     @Override
@@ -85,8 +170,16 @@ public class Image extends DrawableBase.Shape<Image> {
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return getPos();
+    Rectangle2D drawBounds() {
+        // its size isn't known until it's loaded
+        if (this.image == null) return null;
+        localBounds.setRect(
+                (int) (width * (-0.5 - anchor.x)),
+                (int) (height * (-0.5 - anchor.y)),
+                width,
+                height
+        );
+        return localBounds;
     }
 
     @Override
@@ -1,8 +1,10 @@
 package paintingcanvas.drawable;
 
+import paintingcanvas.misc.ColorCache;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 
 /**
  * A line: with a startpoint and an endpoint
@@ -66,8 +68,9 @@ public class Line extends DrawableBase<Line> {
     }
 
     public Line setStroke(int thickness, Color color) {
-        this.color = color;
+        this.color = color.getRGB();
         this.stroke = new BasicStroke(thickness);
+        changed();
         return this;
     }
 
@@ -79,6 +82,7 @@ public class Line extends DrawableBase<Line> {
      */
     public Line setStroke(Stroke stroke) {
         this.stroke = stroke;
+        changed();
         return this;
     }
 
@@ -90,6 +94,7 @@ public class Line extends DrawableBase<Line> {
      */
     public Line setThickness(int thickness) {
         this.stroke = new BasicStroke(thickness);
+        changed();
         return this;
     }
 
@@ -137,6 +142,7 @@ public class Line extends DrawableBase<Line> {
     public Line setStartpoint(int x, int y) {
         this.x = x;
         this.y = y;
+        changed();
         return this;
     }
 
@@ -149,17 +155,41 @@ public class Line extends DrawableBase<Line> {
      */
     public Line setEndpoint(int x, int y) {
         this.endOffset = new Point(this.x - x, this.y - y);
+        changed();
         return this;
     }
 
     @Override
     void draw(Graphics2D gc) {
+        gc.setColor(ColorCache.get(this.color));
+        gc.setStroke(this.stroke);
         gc.drawLine(0, 0, endOffset.x, endOffset.y);
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return new Point(this.x + endOffset.x / 2, this.y + endOffset.y / 2);
+    Rectangle2D drawBounds() {
+        localBounds.setRect(
+                Math.min(0, endOffset.x),
+                Math.min(0, endOffset.y),
+                Math.abs(endOffset.x),
+                Math.abs(endOffset.y)
+        );
+        return localBounds;
+    }
+
+    @Override
+    double boundsPadding() {
+        return strokePadding(this.stroke);
+    }
+
+    @Override
+    int centerX() {
+        return this.x + endOffset.x / 2;
+    }
+
+    @Override
+    int centerY() {
+        return this.y + endOffset.y / 2;
     }
 
     public Line getThis() {
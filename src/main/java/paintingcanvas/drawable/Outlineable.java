@@ -1,5 +1,6 @@
 package paintingcanvas.drawable;
 
+import paintingcanvas.misc.ColorCache;
 import paintingcanvas.misc.ElementContainer;
 
 import java.awt.*;
@@ -24,6 +25,20 @@ public interface Outlineable<T extends Drawable<T>> extends Drawable<T> {
 
     void internalSetFilled(boolean filled);
 
+    /**
+     * Set the outline color as a packed ARGB int ({@code 0xAARRGGBB}), like {@link Colorable#internalSetArgb(int)}
+     */
+    default void internalSetOutlineArgb(int argb) {
+        internalSetOutlineColor(ColorCache.get(argb));
+    }
+
+    /**
+     * @return the outline color as a packed ARGB int ({@code 0xAARRGGBB})
+     */
+    default int internalGetOutlineArgb() {
+        return getOutlineColor().getRGB();
+    }
+
     /**
      * Gets the outline color
      *
@@ -57,8 +72,10 @@ public interface Outlineable<T extends Drawable<T>> extends Drawable<T> {
      * @return the original object to allow method chaining
      */
     default T setOutline(int thickness, Color color) {
+        var stroke = new BasicStroke(thickness);
+        // so a frame never gets the new thickness with the old color
         ElementContainer.atomic(() -> {
-            internalSetOutlineStroke(new BasicStroke(thickness));
+            internalSetOutlineStroke(stroke);
             internalSetOutlineColor(color);
         });
         return this.getThis();
@@ -81,7 +98,8 @@ public interface Outlineable<T extends Drawable<T>> extends Drawable<T> {
      * @return the original object to allow method chaining
      */
     default T setOutline(Color color) {
-        ElementContainer.atomic(() -> internalSetOutlineColor(color));
+        internalSetOutlineColor(color);
+        ElementContainer.publish();
         return this.getThis();
     }
 
@@ -102,7 +120,8 @@ public interface Outlineable<T extends Drawable<T>> extends Drawable<T> {
      * @return the original object to allow method chaining
      */
     default T setOutline(int thickness) {
-        ElementContainer.atomic(() -> internalSetOutlineStroke(new BasicStroke(thickness)));
+        internalSetOutlineStroke(new BasicStroke(thickness));
+        ElementContainer.publish();
         return this.getThis();
     }
 
@@ -113,6 +132,7 @@ public interface Outlineable<T extends Drawable<T>> extends Drawable<T> {
      */
     default T removeOutline() {
         internalSetOutlineStroke(null);
+        ElementContainer.publish();
         return this.getThis();
     }
 
@@ -131,7 +151,8 @@ public interface Outlineable<T extends Drawable<T>> extends Drawable<T> {
      * @see #setOutline(int)
      */
     default T setFilled(boolean filled) {
-        ElementContainer.atomic(() -> internalSetFilled(filled));
+        internalSetFilled(filled);
+        ElementContainer.publish();
         return getThis();
     }
 }
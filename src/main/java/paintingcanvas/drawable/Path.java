@@ -4,6 +4,7 @@ import paintingcanvas.misc.Misc;
 
 import java.awt.*;
 import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 
 /**
  * An SVG-like path used to draw lines and curves.
@@ -17,6 +18,12 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
      * @see Path2D
      */
     final Path2D path;
+    /**
+     * The bounds of {@link #path}, worked out again after it changes (which changes {@link #appearance})
+     */
+    final Rectangle2D.Double pathBounds = new Rectangle2D.Double();
+    int pathCenterX, pathCenterY;
+    int measured = -1;
 
     /**
      * Create a new Path element. The path is initially empty.
@@ -83,6 +90,7 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
     @SuppressWarnings("unused")
     public Path setStroke(Stroke stroke) {
         this.outlineStroke = stroke;
+        changed();
         return this;
     }
 
@@ -94,6 +102,7 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
      */
     public Path setThickness(int thickness) {
         this.outlineStroke = new BasicStroke(thickness);
+        changed();
         return this;
     }
 
@@ -104,7 +113,8 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
      * @return The original object to allow method chaining
      */
     public Path setLineColor(Color color) {
-        this.outlineColor = color;
+        this.outlineColor = color.getRGB();
+        changed();
         return this;
     }
 
@@ -117,6 +127,7 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
      */
     public Path cursorTo(int x, int y) {
         path.moveTo(x, y);
+        changed();
         return this;
     }
 
@@ -129,6 +140,7 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
      */
     public Path lineTo(int x, int y) {
         path.lineTo(x, y);
+        changed();
         return this;
     }
 
@@ -145,6 +157,7 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
     @SuppressWarnings("unused")
     public Path quadTo(int x1, int y1, int x2, int y2) {
         path.quadTo(x1, y1, x2, y2);
+        changed();
         return this;
     }
 
@@ -163,6 +176,7 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
     @SuppressWarnings("unused")
     public Path curveTo(int x1, int y1, int x2, int y2, int x3, int y3) {
         path.curveTo(x1, y1, x2, y2, x3, y3);
+        changed();
         return this;
     }
 
@@ -177,9 +191,32 @@ public class Path extends DrawableBase.OutlineableDrawableBase<Path> {
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        var bounds = path.getBounds();
-        return new Point(x + (int) bounds.getCenterX(), y + (int) bounds.getCenterY());
+    Rectangle2D drawBounds() {
+        measure();
+        return pathBounds;
+    }
+
+    @Override
+    int centerX() {
+        measure();
+        return x + pathCenterX;
+    }
+
+    @Override
+    int centerY() {
+        measure();
+        return y + pathCenterY;
+    }
+
+    void measure() {
+        var appearance = this.appearance;
+        if (measured == appearance) return;
+        var bounds = path.getBounds2D();
+        var pixels = bounds.getBounds();
+        pathBounds.setRect(bounds);
+        pathCenterX = (int) pixels.getCenterX();
+        pathCenterY = (int) pixels.getCenterY();
+        measured = appearance;
     }
 
     @Override
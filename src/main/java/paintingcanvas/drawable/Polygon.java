@@ -1,6 +1,7 @@
 package paintingcanvas.drawable;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 
 /**
  * A Polygon Element.
@@ -147,11 +148,27 @@ public class Polygon extends DrawableBase.OutlineableDrawableBase<Polygon> {
      */
     public void point(int x, int y) {
         polygon.addPoint(x, y);
+        changed();
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return getPos();
+    Rectangle2D drawBounds() {
+        // like polygon.getBounds2D(), which makes a new rectangle every time
+        var n = polygon.npoints;
+        if (n == 0) {
+            localBounds.setRect(0, 0, 0, 0);
+            return localBounds;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (var i = 0; i < n; i++) {
+            minX = Math.min(minX, polygon.xpoints[i]);
+            maxX = Math.max(maxX, polygon.xpoints[i]);
+            minY = Math.min(minY, polygon.ypoints[i]);
+            maxY = Math.max(maxY, polygon.ypoints[i]);
+        }
+        localBounds.setRect(minX, minY, maxX - minX, maxY - minY);
+        return localBounds;
     }
 
     @Override
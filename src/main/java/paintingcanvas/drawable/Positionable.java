@@ -58,7 +58,8 @@ public interface Positionable<T extends Drawable<T>> extends Drawable<T> {
      * @see #setY(int)
      */
     default T setX(int x) {
-        ElementContainer.atomic(() -> internalSetPos(x, getY()));
+        internalSetPos(x, getY());
+        ElementContainer.publish();
         return getThis();
     }
 
@@ -82,7 +83,8 @@ public interface Positionable<T extends Drawable<T>> extends Drawable<T> {
      * @see #getY()
      */
     default T setY(int y) {
-        ElementContainer.atomic(() -> internalSetPos(getX(), y));
+        internalSetPos(getX(), y);
+        ElementContainer.publish();
         return getThis();
     }
 
@@ -97,6 +99,7 @@ public interface Positionable<T extends Drawable<T>> extends Drawable<T> {
      * @see #setY(int)
      */
     default T setPos(int x, int y) {
+        // so a frame never gets the new x with the old y
         ElementContainer.atomic(() -> internalSetPos(x, y));
         return getThis();
     }
@@ -175,7 +178,8 @@ public interface Positionable<T extends Drawable<T>> extends Drawable<T> {
      * @see #setRotation(double)
      */
     default T rotate(double rotation) {
-        ElementContainer.atomic(() -> internalSetRotation(internalGetRotation() + Math.toRadians(rotation)));
+        internalSetRotation(internalGetRotation() + Math.toRadians(rotation));
+        ElementContainer.publish();
         return getThis();
     }
 
@@ -191,7 +195,8 @@ public interface Positionable<T extends Drawable<T>> extends Drawable<T> {
      * @see #rotate(double)
      */
     default T setRotation(double rotation) {
-        ElementContainer.atomic(() -> internalSetRotation(Math.toRadians(rotation)));
+        internalSetRotation(Math.toRadians(rotation));
+        ElementContainer.publish();
         return getThis();
     }
 }
@@ -3,7 +3,7 @@ package paintingcanvas.drawable;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 
 /**
  * A Rectangle element.
@@ -94,19 +94,25 @@ public class Rectangle extends DrawableBase.InteractableShape<Rectangle> {
     }
 
     @Override
-    void postTransform(AffineTransform transform) {
-        transform.translate(-width * anchor.x, -height * anchor.y);
+    double offsetX() {
+        return -width * anchor.x;
     }
 
     @Override
-    boolean intersectsInDrawSpace(Point pos) {
-        return pos.x >= -width / 2 && pos.x <= width / 2
-                && pos.y >= -height / 2 && pos.y <= height / 2;
+    double offsetY() {
+        return -height * anchor.y;
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return getPos();
+    boolean intersectsInDrawSpace(int x, int y) {
+        return x >= -width / 2 && x <= width / 2
+                && y >= -height / 2 && y <= height / 2;
+    }
+
+    @Override
+    Rectangle2D drawBounds() {
+        localBounds.setRect((int) (width * -0.5), (int) (height * -0.5), width, height);
+        return localBounds;
     }
 
     @Override
@@ -135,6 +141,7 @@ public class Rectangle extends DrawableBase.InteractableShape<Rectangle> {
      */
     public Rectangle setWidth(int w) {
         this.width = w;
+        changed();
         return this;
     }
 
@@ -159,6 +166,7 @@ public class Rectangle extends DrawableBase.InteractableShape<Rectangle> {
      */
     public Rectangle setHeight(int h) {
         this.height = h;
+        changed();
         return this;
     }
 }
\ No newline at end of file
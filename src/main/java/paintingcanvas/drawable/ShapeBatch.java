@@ -0,0 +1,435 @@
+package paintingcanvas.drawable;
+
+import paintingcanvas.misc.ColorCache;
+import paintingcanvas.misc.ElementContainer;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Lots of rectangles or ellipses (instances), drawn as one element. Each instance is just a position, size, rotation
+ * and color in some arrays, instead of a whole element of its own, so thousands of them are much cheaper to keep
+ * around, change and draw than thousands of {@link Rectangle}s or {@link Ellipse}s. They're drawn in the order they
+ * were added, and look just like the separate elements would.
+ * </p>
+ * <p>
+ * The batch itself works like any other element: moving or rotating it moves or rotates every instance with it, and
+ * they all share its outline. It's also changed as a whole, so with {@link paintingcanvas.canvas.CanvasOptions#dirtyRegions}
+ * or a {@link paintingcanvas.canvas.Canvas#setLayerCached(int, boolean) cached layer}, changing one instance draws
+ * all of them again. It's best for things that all change every frame anyway, like particles.
+ * </p>
+ * <pre>{@code
+ * ShapeBatch particles = new ShapeBatch(ShapeBatch.Kind.Ellipse);
+ * for (int i = 0; i < 10000; i++) particles.add(i % 100 * 8, i / 100 * 8, 6, 6, 0xFF3366FF);
+ * particles.moveAll(1, 0);
+ * }</pre>
+ */
+public class ShapeBatch extends DrawableBase.InteractableShape<ShapeBatch> {
+    final Kind kind;
+    int size = 0;
+    int[] xs = new int[16];
+    int[] ys = new int[16];
+    int[] widths = new int[16];
+    int[] heights = new int[16];
+    // in radians, around each instance's center
+    double[] rotations = new double[16];
+    // packed ARGB, see ColorCache
+    int[] colors = new int[16];
+
+    /**
+     * Create a new, empty batch of shapes.
+     * <pre>{@code
+     * ShapeBatch tiles = new ShapeBatch(ShapeBatch.Kind.Rectangle);
+     * }</pre>
+     *
+     * @param kind what shape the instances are
+     */
+    public ShapeBatch(Kind kind) {
+        super(0, 0, Color.BLACK);
+        this.kind = kind;
+    }
+
+    /**
+     * Add an instance to the batch.
+     * <pre>{@code
+     * ShapeBatch tiles = new ShapeBatch(ShapeBatch.Kind.Rectangle);
+     * int tile = tiles.add(100, 100, 10, 10, 0xFFFF0000);
+     * }</pre>
+     *
+     * @param x      The X-position of the center of the instance
+     * @param y      The Y-position of the center of the instance
+     * @param width  The width of the instance
+     * @param height The height of the instance
+     * @param argb   The color of the instance, as {@code 0xAARRGGBB}
+     * @return The index of the instance, for the other methods
+     */
+    public int add(int x, int y, int width, int height, int argb) {
+        return ElementContainer.atomic(() -> {
+            if (size == xs.length) grow();
+            var i = size;
+            xs[i] = x;
+            ys[i] = y;
+            widths[i] = width;
+            heights[i] = height;
+            rotations[i] = 0;
+            colors[i] = argb;
+            size++;
+            changed();
+            return i;
+        });
+    }
+
+    /**
+     * Add an instance to the batch.
+     *
+     * @param x      The X-position of the center of the instance
+     * @param y      The Y-position of the center of the instance
+     * @param width  The width of the instance
+     * @param height The height of the instance
+     * @param color  The color of the instance
+     * @return The index of the instance, for the other methods
+     */
+    public int add(int x, int y, int width, int height, Color color) {
+        return add(x, y, width, height, color.getRGB());
+    }
+
+    void grow() {
+        var capacity = xs.length * 2;
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        widths = Arrays.copyOf(widths, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        rotations = Arrays.copyOf(rotations, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+    }
+
+    /**
+     * @return The number of instances in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every instance from the batch.
+     *
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch clear() {
+        ElementContainer.atomic(() -> {
+            size = 0;
+            changed();
+        });
+        return this;
+    }
+
+    /**
+     * @param i the index of the instance
+     * @return The X-position of the center of the instance
+     */
+    public int getInstanceX(int i) {
+        return xs[check(i)];
+    }
+
+    /**
+     * @param i the index of the instance
+     * @return The Y-position of the center of the instance
+     */
+    public int getInstanceY(int i) {
+        return ys[check(i)];
+    }
+
+    /**
+     * @param i the index of the instance
+     * @return The color of the instance, as {@code 0xAARRGGBB}
+     */
+    public int getInstanceColor(int i) {
+        return colors[check(i)];
+    }
+
+    /**
+     * Move an instance so its center is at ({@code x}, {@code y}).
+     *
+     * @param i the index of the instance
+     * @param x the new X-position
+     * @param y the new Y-position
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch setInstancePos(int i, int x, int y) {
+        ElementContainer.atomic(() -> {
+            xs[check(i)] = x;
+            ys[i] = y;
+            changed();
+        });
+        return this;
+    }
+
+    /**
+     * @param i      the index of the instance
+     * @param width  the new width
+     * @param height the new height
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch setInstanceSize(int i, int width, int height) {
+        ElementContainer.atomic(() -> {
+            widths[check(i)] = width;
+            heights[i] = height;
+            changed();
+        });
+        return this;
+    }
+
+    /**
+     * @param i        the index of the instance
+     * @param rotation the new rotation in degrees, around the instance's center
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch setInstanceRotation(int i, double rotation) {
+        rotations[check(i)] = Math.toRadians(rotation);
+        changed();
+        return this;
+    }
+
+    /**
+     * <pre>{@code
+     * tiles.setInstanceColor(tile, 0xFFFFFFFF); // make it white
+     * }</pre>
+     *
+     * @param i    the index of the instance
+     * @param argb the new color, as {@code 0xAARRGGBB}
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch setInstanceColor(int i, int argb) {
+        colors[check(i)] = argb;
+        changed();
+        return this;
+    }
+
+    /**
+     * Move every instance by the same amount. (Unlike {@link #move(int, int)}, which moves the whole batch.)
+     *
+     * @param dx how far to move them along the x-axis
+     * @param dy how far to move them along the y-axis
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch moveAll(int dx, int dy) {
+        ElementContainer.atomic(() -> {
+            for (var i = 0; i < size; i++) {
+                xs[i] += dx;
+                ys[i] += dy;
+            }
+            changed();
+        });
+        return this;
+    }
+
+    /**
+     * Move the first {@code xs.length} instances at once.
+     * <pre>{@code
+     * int[] xs = new int[particles.size()], ys = new int[particles.size()];
+     * // ... work out where everything goes ...
+     * particles.setPositions(xs, ys);
+     * }</pre>
+     *
+     * @param xs the new X-positions
+     * @param ys the new Y-positions, the same length as {@code xs}
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch setPositions(int[] xs, int[] ys) {
+        var n = checkLength(xs.length);
+        if (ys.length != n) throw new IllegalArgumentException("xs and ys need to be the same length");
+        ElementContainer.atomic(() -> {
+            System.arraycopy(xs, 0, this.xs, 0, n);
+            System.arraycopy(ys, 0, this.ys, 0, n);
+            changed();
+        });
+        return this;
+    }
+
+    /**
+     * Set the rotation of the first {@code rotations.length} instances at once.
+     *
+     * @param rotations the new rotations in degrees
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch setRotations(double[] rotations) {
+        var n = checkLength(rotations.length);
+        ElementContainer.atomic(() -> {
+            for (var i = 0; i < n; i++) this.rotations[i] = Math.toRadians(rotations[i]);
+            changed();
+        });
+        return this;
+    }
+
+    /**
+     * Set the color of the first {@code colors.length} instances at once.
+     *
+     * @param colors the new colors, as {@code 0xAARRGGBB}
+     * @return The original object to allow method chaining
+     */
+    public ShapeBatch setColors(int[] colors) {
+        var n = checkLength(colors.length);
+        ElementContainer.atomic(() -> {
+            System.arraycopy(colors, 0, this.colors, 0, n);
+            changed();
+        });
+        return this;
+    }
+
+    int check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Instance " + i + " out of bounds for " + size);
+        return i;
+    }
+
+    int checkLength(int length) {
+        if (length > size) throw new IndexOutOfBoundsException(length + " values for " + size + " instances");
+        return length;
+    }
+
+    /**
+     * Find the instance under a point, like {@link #intersects(Point)} for a single instance.
+     * <pre>{@code
+     * int hovered = tiles.instanceAt(canvas.getMousePos());
+     * if (hovered >= 0) tiles.setInstanceColor(hovered, 0xFFFF0000);
+     * }</pre>
+     *
+     * @param pos the position, in the same coordinates as {@link paintingcanvas.canvas.Canvas#getMousePos()}
+     * @return The index of the top instance under {@code pos}, or -1 if there isn't one (or it hasn't been drawn yet)
+     */
+    public int instanceAt(Point pos) {
+        var hitbox = this.hitbox;
+        if (hitbox == null || pos == null || !hitbox.mayContain(pos.x, pos.y)) return -1;
+        return instanceAtInDrawSpace(hitbox.localX(pos.x, pos.y), hitbox.localY(pos.x, pos.y));
+    }
+
+    int instanceAtInDrawSpace(int x, int y) {
+        // the last one drawn is on top
+        for (var i = Math.min(size, xs.length) - 1; i >= 0; i--) {
+            double dx = x - xs[i], dy = y - ys[i];
+            if (rotations[i] != 0) {
+                var cos = Math.cos(-rotations[i]);
+                var sin = Math.sin(-rotations[i]);
+                var rx = dx * cos - dy * sin;
+                dy = dx * sin + dy * cos;
+                dx = rx;
+            }
+            var hw = widths[i] * 0.5;
+            var hh = heights[i] * 0.5;
+            var inside = kind == Kind.Rectangle
+                    ? Math.abs(dx) <= hw && Math.abs(dy) <= hh
+                    : (dx * dx) / (hw * hw) + (dy * dy) / (hh * hh) <= 1;
+            if (inside) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    boolean intersectsInDrawSpace(int x, int y) {
+        return instanceAtInDrawSpace(x, y) >= 0;
+    }
+
+    @Override
+    void draw(Graphics2D g) {
+        // the arrays can be swapped for bigger ones while this is drawing
+        var xs = this.xs;
+        var ys = this.ys;
+        var widths = this.widths;
+        var heights = this.heights;
+        var rotations = this.rotations;
+        var colors = this.colors;
+        var n = Math.min(size, Math.min(Math.min(xs.length, ys.length), Math.min(widths.length, heights.length)));
+        n = Math.min(n, Math.min(rotations.length, colors.length));
+
+        // only needed to undo rotated instances
+        AffineTransform base = null;
+        var stroke = g.getStroke();
+        var outlineColor = ColorCache.get(this.outlineColor);
+        var lastColor = 0;
+        Color color = null;
+        for (var i = 0; i < n; i++) {
+            int x = xs[i], y = ys[i];
+            if (rotations[i] != 0) {
+                if (base == null) base = g.getTransform();
+                // the same as a separate element: rotate around its center, then draw around the origin
+                g.rotate(rotations[i], x, y);
+                g.translate(x, y);
+                x = 0;
+                y = 0;
+            }
+            x += (int) (widths[i] * -0.5);
+            y += (int) (heights[i] * -0.5);
+
+            if (this.filled) {
+                if (color == null || colors[i] != lastColor) {
+                    lastColor = colors[i];
+                    color = ColorCache.get(lastColor);
+                }
+                g.setColor(color);
+                if (kind == Kind.Rectangle) g.fillRect(x, y, widths[i], heights[i]);
+                else g.fillOval(x, y, widths[i], heights[i]);
+            }
+            if (this.outlineStroke != null) {
+                g.setStroke(this.outlineStroke);
+                g.setColor(outlineColor);
+                if (kind == Kind.Rectangle) g.drawRect(x, y, widths[i], heights[i]);
+                else g.drawOval(x, y, widths[i], heights[i]);
+                // the outline's stroke would change how the next fill comes out
+                g.setStroke(stroke);
+            }
+            if (rotations[i] != 0) g.setTransform(base);
+        }
+    }
+
+    @Override
+    void drawFill(Graphics2D g) {
+        // everything is drawn in draw, one instance at a time
+    }
+
+    @Override
+    void drawOutline(Graphics2D g) {
+    }
+
+    @Override
+    Rectangle2D drawBounds() {
+        var n = Math.min(size, xs.length);
+        if (n == 0) {
+            localBounds.setRect(0, 0, 0, 0);
+            return localBounds;
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (var i = 0; i < n; i++) {
+            double hw = widths[i] * 0.5, hh = heights[i] * 0.5;
+            // a rotated instance stays inside the circle around its corners
+            if (rotations[i] != 0) hw = hh = Math.hypot(hw, hh);
+            minX = Math.min(minX, xs[i] - hw);
+            maxX = Math.max(maxX, xs[i] + hw);
+            minY = Math.min(minY, ys[i] - hh);
+            maxY = Math.max(maxY, ys[i] + hh);
+        }
+        localBounds.setRect(minX, minY, maxX - minX, maxY - minY);
+        return localBounds;
+    }
+
+    @Override
+    public ShapeBatch getThis() {
+        return this;
+    }
+
+    /**
+     * What shape the instances in a {@link ShapeBatch} are
+     */
+    public enum Kind {
+        /**
+         * Like {@link paintingcanvas.drawable.Rectangle}
+         */
+        Rectangle,
+        /**
+         * Like {@link paintingcanvas.drawable.Ellipse}
+         */
+        Ellipse
+    }
+}
@@ -0,0 +1,146 @@
+package paintingcanvas.drawable;
+
+import paintingcanvas.InternalCanvas;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+
+/**
+ * <p>
+ * An element drawn once onto an image of its own, so it can be copied onto the canvas instead of being drawn again
+ * every frame, see {@link DrawableBase#setSpriteCached(boolean)}.
+ * </p>
+ * <p>
+ * The image is drawn with the element's whole transform (including its rotation and the scale of the canvas), so as
+ * long as the element is only moved by whole pixels, copying the image puts exactly the same pixels in the same
+ * places. If it's rotated by a little (up to {@link paintingcanvas.canvas.CanvasOptions#spriteRotationTolerance}),
+ * the image is turned to match; anything else, or a change to how the element looks, draws the image again.
+ * </p>
+ */
+class Sprite {
+    // sprites bigger than this aren't worth the memory, the element is just drawn normally
+    static final int MAX_PIXELS = 1 << 22;
+    static final double EPSILON = 1e-9;
+    static final AffineTransform IDENTITY = new AffineTransform();
+
+    final DrawableBase<?> drawable;
+    BufferedImage image;
+    // the element's appearance when it was drawn, see DrawableBase#appearance
+    int appearance;
+    // the transform it was drawn with (and its inverse), and where the top left of the image was on the canvas
+    final AffineTransform transform = new AffineTransform();
+    final AffineTransform inverse = new AffineTransform();
+    boolean invertible;
+    int x, y;
+    // the element's transform this time, and the one the image is turned with
+    final AffineTransform current = new AffineTransform();
+    final AffineTransform turned = new AffineTransform();
+    final java.awt.Rectangle area = new java.awt.Rectangle();
+
+    Sprite(DrawableBase<?> drawable) {
+        this.drawable = drawable;
+    }
+
+    /**
+     * Draw the sprite onto {@code g}, first drawing it again if it's out of date. Synchronized, because an element can
+     * be drawn on more than one tile at once (see {@link paintingcanvas.canvas.CanvasOptions#renderThreads}).
+     *
+     * @param g    the graphics to draw on, without the element's transform
+     * @param base the transform {@code g} has
+     * @return false if the element can't be drawn as a sprite right now, and should just be drawn normally
+     */
+    synchronized boolean render(Graphics2D g, AffineTransform base) {
+        var transform = this.current;
+        transform.setTransform(base);
+        drawable.applyTransform(transform);
+
+        if (image != null && appearance == drawable.appearance) {
+            if (sameShape(transform)) {
+                // only moved: copy it over, if it moved by whole pixels
+                var dx = transform.getTranslateX() - this.transform.getTranslateX();
+                var dy = transform.getTranslateY() - this.transform.getTranslateY();
+                if (Math.abs(dx - Math.rint(dx)) < EPSILON && Math.abs(dy - Math.rint(dy)) < EPSILON) {
+                    g.setTransform(IDENTITY);
+                    g.drawImage(image, x + (int) Math.rint(dx), y + (int) Math.rint(dy), null);
+                    return true;
+                }
+            } else if (invertible && closeEnough(transform)) {
+                turned.setTransform(transform);
+                turned.concatenate(this.inverse);
+                turned.translate(x, y);
+                var interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setTransform(turned);
+                g.drawImage(image, 0, 0, null);
+                if (interpolation != null) g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+                return true;
+            }
+        }
+        if (!redraw(g, transform)) return false;
+
+        g.setTransform(IDENTITY);
+        g.drawImage(image, x, y, null);
+        return true;
+    }
+
+    boolean sameShape(AffineTransform transform) {
+        var t = this.transform;
+        return t.getScaleX() == transform.getScaleX() && t.getShearY() == transform.getShearY()
+                && t.getShearX() == transform.getShearX() && t.getScaleY() == transform.getScaleY();
+    }
+
+    /**
+     * @return whether {@code transform} is only rotated a bit from the one the sprite was drawn with
+     */
+    boolean closeEnough(AffineTransform transform) {
+        var tolerance = Math.toRadians(InternalCanvas.options.spriteRotationTolerance);
+        if (tolerance <= 0) return false;
+        var t = this.transform;
+        if (Math.abs(t.getDeterminant() - transform.getDeterminant()) > EPSILON * Math.abs(t.getDeterminant()))
+            return false;
+        var was = Math.atan2(t.getShearY(), t.getScaleX());
+        var now = Math.atan2(transform.getShearY(), transform.getScaleX());
+        var turn = Math.abs(now - was) % (2 * Math.PI);
+        return Math.min(turn, 2 * Math.PI - turn) <= tolerance;
+    }
+
+    /**
+     * Draw the element onto the image, with its transform
+     *
+     * @return false if the element's size isn't known (or it's too big), so it can't be drawn onto an image
+     */
+    boolean redraw(Graphics2D g, AffineTransform transform) {
+        var local = drawable.drawBounds();
+        if (local == null) return false;
+        DrawableBase.transformBounds(transform, local, drawable.boundsPadding(), area);
+        int left = area.x, top = area.y, width = area.width, height = area.height;
+        if ((long) width * height > MAX_PIXELS) return false;
+
+        if (image == null || image.getWidth() != width || image.getHeight() != height)
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        var sg = image.createGraphics();
+        sg.setComposite(AlphaComposite.Clear);
+        sg.fillRect(0, 0, width, height);
+        sg.setComposite(AlphaComposite.SrcOver);
+        sg.setRenderingHints(g.getRenderingHints());
+        sg.setStroke(g.getStroke());
+        sg.translate(-left, -top);
+        sg.transform(transform);
+        drawable.draw(sg);
+        sg.dispose();
+
+        this.appearance = drawable.appearance;
+        this.transform.setTransform(transform);
+        try {
+            this.inverse.setTransform(transform.createInverse());
+            this.invertible = true;
+        } catch (NoninvertibleTransformException e) {
+            this.invertible = false;
+        }
+        this.x = left;
+        this.y = top;
+        return true;
+    }
+}
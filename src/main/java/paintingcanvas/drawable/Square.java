@@ -3,7 +3,7 @@ package paintingcanvas.drawable;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 
 /**
  * A Square element.
@@ -88,19 +88,25 @@ public class Square extends DrawableBase.InteractableShape<Square> {
     }
 
     @Override
-    void postTransform(AffineTransform transform) {
-        transform.translate(-size * anchor.x, -size * anchor.y);
+    double offsetX() {
+        return -size * anchor.x;
     }
 
     @Override
-    boolean intersectsInDrawSpace(Point pos) {
-        return pos.x >= -size / 2 && pos.x <= size / 2
-                && pos.y >= -size / 2 && pos.y <= size / 2;
+    double offsetY() {
+        return -size * anchor.y;
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return getPos();
+    boolean intersectsInDrawSpace(int x, int y) {
+        return x >= -size / 2 && x <= size / 2
+                && y >= -size / 2 && y <= size / 2;
+    }
+
+    @Override
+    Rectangle2D drawBounds() {
+        localBounds.setRect((int) (size * -0.5), (int) (size * -0.5), size, size);
+        return localBounds;
     }
 
     @Override
@@ -127,6 +133,7 @@ public class Square extends DrawableBase.InteractableShape<Square> {
      */
     public Square setSize(int s) {
         this.size = s;
+        changed();
         return this;
     }
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package paintingcanvas.drawable;
 
 import paintingcanvas.misc.Anchor;
+import paintingcanvas.misc.ColorCache;
+import paintingcanvas.misc.FontCache;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Rectangle2D;
 
 /**
  * <p>
@@ -22,14 +27,18 @@ import java.awt.*;
 @SuppressWarnings("unused")
 public class Text extends DrawableBase<Text> implements Anchorable<Text> {
     /**
-     * The font of the text, you can change this if you want a different font (and have it installed)
+     * The font of the text, you can change this if you want a different font (and have it installed).
+     * Changing it directly is picked up on the next frame.
      */
-    public Font font = new Font("Comic Sans MS", Font.BOLD, 12);
+    public Font font = FontCache.get("Comic Sans MS", Font.BOLD, 12);
     /**
-     * The text to draw
+     * The text to draw. Changing it directly is picked up on the next frame, but {@link #setText(String)} is better.
      */
     public String text;
     Anchor anchor = Anchor.CENTER;
+    // the text and font the canvas knows about, to catch the fields being changed directly
+    String lastText;
+    Font lastFont = font;
 
     /**
      * <p>
@@ -49,7 +58,7 @@ public class Text extends DrawableBase<Text> implements Anchorable<Text> {
      */
     public Text(int x, int y, String text) {
         super(x, y, Color.BLACK);
-        this.text = text;
+        this.text = this.lastText = text;
     }
 
 
@@ -72,7 +81,7 @@ public class Text extends DrawableBase<Text> implements Anchorable<Text> {
      */
     public Text(int x, int y, String text, Color color) {
         super(x, y, color);
-        this.text = text;
+        this.text = this.lastText = text;
     }
 
     /**
@@ -98,74 +107,79 @@ public class Text extends DrawableBase<Text> implements Anchorable<Text> {
         this(x, y, text, Misc.stringToColor(color));
     }
 
-    private int width, height;
-    private FontMetrics metrics;
+    // where the text goes, only worked out again when the text, font or anchor changes
+    private Layout layout;
 
     @Override
     void draw(Graphics2D g) {
-        metrics = g.getFontMetrics(font);
+        var layout = this.layout;
+        var frc = g.getFontRenderContext();
+        // rotating or scaling the text can change its metrics a little, so it's measured again for those
+        if (layout == null || !layout.matches(this) || !frc.equals(layout.frc)) {
+            var last = layout;
+            this.layout = layout = new Layout(this, g.getFontMetrics(font), frc);
+            // measured a little differently, so the canvas has to find out where it is now
+            if (last != null && last.matches(this) && !last.bounds.equals(layout.bounds)) remeasure();
+        }
 
-        width = metrics.stringWidth(text);
-        height = metrics.getHeight();
-        var ascent = metrics.getAscent();
-        var descent = metrics.getDescent();
-
-
-        var dy = 0.0;
-        if (anchor.y > 0) dy = descent * -anchor.y;
-        else if (anchor.y < 0) dy = ascent * -anchor.y;
-
-        g.setColor(color);
-        g.setFont(font);
-        g.drawString(
-                text,
-                (int) (width * (-0.5 - anchor.x)),
-                (int) dy
-        );
+        g.setColor(ColorCache.get(color));
+        if (layout.glyphs != null) g.drawGlyphVector(layout.glyphs, layout.x, layout.y);
+        else {
+            g.setFont(font);
+            g.drawString(text, layout.x, layout.y);
+        }
     }
 
+    /**
+     * @return the layout for the current text, font and anchor, measuring it (as if it's drawn unscaled) if it hasn't
+     * been drawn like that yet
+     */
+    private Layout layout() {
+        var layout = this.layout;
+        if (layout != null && layout.matches(this)) return layout;
+        var metrics = FontCache.getFontMetrics(font);
+        return this.layout = new Layout(this, metrics, metrics.getFontRenderContext());
+    }
 
     @Override
-    public Point center(Graphics2D g) {
-        return new Point(x, y);
+    Rectangle2D drawBounds() {
+        return layout().bounds;
     }
 
     /**
      * <p>
-     *     Note that the computed width of the text only gets updated when the text is drawn. (i.e. it does not get
-     *     updated immediately)
+     *     The width is known as soon as the text or font is changed, without waiting for it to be drawn. If the text
+     *     is rotated (or the canvas is scaled), it's updated to the width it was drawn with once it's drawn.
      * </p>
      *
      * @return The width of the text in pixels.
      */
     public int getWidth() {
-        return width;
+        return layout().width;
     }
 
     /**
      * <p>
-     *      Note that the computed height of the text only gets updated when the text is drawn. (i.e. it does not get
-     *      updated immediately)
+     *      The height is known as soon as the text or font is changed, without waiting for it to be drawn.
      * </p>
      *
      * @return The height of the text in pixels.
      */
     public int getHeight() {
-        return height;
+        return layout().metrics.getHeight();
     }
 
     /**
      * If you need more information about the text, such as ascent, descent, leading, etc. the information can be
      * retrieved from the {@link FontMetrics} object.
      * <p>
-     *     Again, note that the metrics are only updated when the text is drawn. (i.e. it does not get
-     *     updated immediately)
+     *     Like {@link #getWidth()}, these are known as soon as the font is changed.
      * </p>
      *
      * @return The FontMetrics object containing information about the text
      */
     public FontMetrics getFontMetrics() {
-       return metrics;
+       return layout().metrics;
     }
 
     @Override
@@ -201,7 +215,8 @@ public class Text extends DrawableBase<Text> implements Anchorable<Text> {
      * @see #getFontSize()
      */
     public Text setFontSize(double size) {
-        this.font = font.deriveFont((float) size);
+        this.font = this.lastFont = FontCache.derive(font, (float) size);
+        changed();
         return this;
     }
 
@@ -230,7 +245,8 @@ public class Text extends DrawableBase<Text> implements Anchorable<Text> {
      * @return The original object to allow method chaining
      */
     public Text setText(String text) {
-        this.text = text;
+        this.text = this.lastText = text;
+        changed();
         return this;
     }
 
@@ -239,8 +255,69 @@ public class Text extends DrawableBase<Text> implements Anchorable<Text> {
         return this.anchor;
     }
 
+    @Override
+    public boolean internalPolled() {
+        return true;
+    }
+
+    @Override
+    public void internalCheckChanged() {
+        var text = this.text;
+        var font = this.font;
+        if (text == lastText && font == lastFont) return;
+        lastText = text;
+        lastFont = font;
+        this.bumpVersion();
+        this.appearance++;
+    }
+
     @Override
     public void internalSetAnchor(Anchor anchor) {
         this.anchor = anchor;
+        this.bumpVersion();
+        this.appearance++;
+    }
+
+    /**
+     * Where the text is drawn for one text, font and anchor: its metrics, where the baseline starts, and the glyphs
+     * (so they don't have to be looked up again every frame).
+     */
+    static final class Layout {
+        final String text;
+        final Font font;
+        final Anchor anchor;
+        final FontRenderContext frc;
+        final FontMetrics metrics;
+        final int width;
+        final int x, y;
+        final Rectangle2D.Double bounds;
+        // null for text that needs more than looking up each character's glyph (like right-to-left text), which is
+        // left to drawString
+        final GlyphVector glyphs;
+
+        Layout(Text text, FontMetrics metrics, FontRenderContext frc) {
+            this.text = text.text;
+            this.font = text.font;
+            this.anchor = text.anchor;
+            this.frc = frc;
+            this.metrics = metrics;
+
+            width = metrics.stringWidth(this.text);
+            var ascent = metrics.getAscent();
+            var descent = metrics.getDescent();
+            var dy = 0.0;
+            if (anchor.y > 0) dy = descent * -anchor.y;
+            else if (anchor.y < 0) dy = ascent * -anchor.y;
+            x = (int) (width * (-0.5 - anchor.x));
+            y = (int) dy;
+            bounds = new Rectangle2D.Double(x, y - ascent, width, ascent + descent);
+
+            var chars = this.text.toCharArray();
+            glyphs = Font.textRequiresLayout(chars, 0, chars.length) ? null : font.createGlyphVector(frc, chars);
+        }
+
+        boolean matches(Text text) {
+            return this.text == text.text && this.font == text.font && this.anchor == text.anchor;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,7 +3,7 @@ package paintingcanvas.drawable;
 import paintingcanvas.misc.Misc;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 
 /**
  * A Triangle element.
@@ -15,6 +15,10 @@ import java.awt.geom.AffineTransform;
 public class Triangle extends DrawableBase.InteractableShape<Triangle> {
     int width;
     int height;
+    /**
+     * The points to draw, only made again when they change, see {@link #getPolygon()}
+     */
+    java.awt.Polygon polygon;
 
     /**
      * Create a new Triangle element.
@@ -72,7 +76,10 @@ public class Triangle extends DrawableBase.InteractableShape<Triangle> {
     }
 
     private java.awt.Polygon getPolygon() {
-        return new java.awt.Polygon(
+        // the points only depend on half the width and height
+        var polygon = this.polygon;
+        if (polygon != null && polygon.xpoints[1] == width / 2 && polygon.ypoints[0] == height / 2) return polygon;
+        return this.polygon = new java.awt.Polygon(
                 new int[]{-width / 2, width / 2, 0},
                 new int[]{height / 2, height / 2, -height / 2},
                 3
@@ -80,15 +87,20 @@ public class Triangle extends DrawableBase.InteractableShape<Triangle> {
     }
 
     @Override
-    void postTransform(AffineTransform transform) {
-        transform.translate(-width * anchor.x, -height * anchor.y);
+    double offsetX() {
+        return -width * anchor.x;
+    }
+
+    @Override
+    double offsetY() {
+        return -height * anchor.y;
     }
 
     @Override
-    boolean intersectsInDrawSpace(Point pos) {
-        var y = ((double)pos.y) / height;
-        var x = ((double)pos.x) / width;
-        return (Math.abs(2.0 * x) - 0.5) <= y && y <= 0.5;
+    boolean intersectsInDrawSpace(int x, int y) {
+        var ty = ((double) y) / height;
+        var tx = ((double) x) / width;
+        return (Math.abs(2.0 * tx) - 0.5) <= ty && ty <= 0.5;
     }
 
     /**
@@ -110,6 +122,7 @@ public class Triangle extends DrawableBase.InteractableShape<Triangle> {
      */
     public Triangle setWidth(int w) {
         this.width = w;
+        changed();
         return this;
     }
 
@@ -132,6 +145,7 @@ public class Triangle extends DrawableBase.InteractableShape<Triangle> {
      */
     public Triangle setHeight(int h) {
         this.height = h;
+        changed();
         return this;
     }
 
@@ -146,8 +160,9 @@ public class Triangle extends DrawableBase.InteractableShape<Triangle> {
     }
 
     @Override
-    public Point center(Graphics2D g) {
-        return getPos();
+    Rectangle2D drawBounds() {
+        localBounds.setRect(-width / 2, -height / 2, width, height);
+        return localBounds;
     }
 
     @Override
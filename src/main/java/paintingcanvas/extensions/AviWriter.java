@@ -0,0 +1,205 @@
+package paintingcanvas.extensions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Writes a Motion-JPEG AVI file one frame at a time, used by {@link Recorder#recordVideo(Path)}.
+ * Every frame is just a JPEG, so most video players (and anything built on ffmpeg) can open the file directly.
+ * </p>
+ * <p>
+ * Frames are appended to the file as soon as they're written, and only their sizes are kept in memory (for the index
+ * at the end). The header has placeholders for the frame count and such, which get filled in by {@link #close()}.
+ * </p>
+ * <p>
+ * Frames can be encoded on any thread, but {@link #write(int, byte[])} waits until it's that frame's turn, so they
+ * end up in the file in order.
+ * </p>
+ */
+class AviWriter implements Closeable {
+    // AVI files use 32 bit sizes, and plenty of players get confused past 2GB
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+    static final int AVIF_HASINDEX = 0x10;
+    static final int AVIIF_KEYFRAME = 0x10;
+    // where the fields that are only known at the end are
+    static final int RIFF_SIZE = 4;
+    static final int AVIH_MAX_BYTES_PER_SEC = 36;
+    static final int AVIH_TOTAL_FRAMES = 48;
+    static final int AVIH_SUGGESTED_BUFFER = 60;
+    static final int STRH_LENGTH = 140;
+    static final int STRH_SUGGESTED_BUFFER = 144;
+    static final int MOVI_SIZE = 216;
+    // the offsets in the index are from the start of the "movi" tag
+    static final int MOVI_START = 220;
+    static final int HEADER_SIZE = 224;
+
+    final FileChannel channel;
+    final int fps;
+    long position = HEADER_SIZE;
+    int[] sizes = new int[256];
+    int frames = 0;
+    int maxFrameSize = 0;
+    // the number of the next frame to go in the file
+    int next = 0;
+    boolean full = false;
+
+    /**
+     * Create the file (replacing it if it exists) and write the header
+     *
+     * @param path   where to write the video
+     * @param width  the width of every frame
+     * @param height the height of every frame
+     * @param fps    how many frames per second the video plays at
+     */
+    AviWriter(Path path, int width, int height, int fps) throws IOException {
+        this.fps = fps;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        var header = buffer(HEADER_SIZE);
+        fourcc(header, "RIFF").putInt(0);
+        fourcc(header, "AVI ");
+        fourcc(header, "LIST").putInt(192);
+        fourcc(header, "hdrl");
+
+        fourcc(header, "avih").putInt(56);
+        header.putInt(1_000_000 / fps)
+                .putInt(0)
+                .putInt(0)
+                .putInt(AVIF_HASINDEX)
+                .putInt(0)
+                .putInt(0)
+                .putInt(1)
+                .putInt(0)
+                .putInt(width)
+                .putInt(height)
+                .putInt(0).putInt(0).putInt(0).putInt(0);
+
+        fourcc(header, "LIST").putInt(116);
+        fourcc(header, "strl");
+        fourcc(header, "strh").putInt(56);
+        fourcc(header, "vids");
+        fourcc(header, "MJPG");
+        header.putInt(0)
+                .putShort((short) 0).putShort((short) 0)
+                .putInt(0)
+                .putInt(1)
+                .putInt(fps)
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putInt(-1)
+                .putInt(0)
+                .putShort((short) 0).putShort((short) 0).putShort((short) width).putShort((short) height);
+
+        // a BITMAPINFOHEADER
+        fourcc(header, "strf").putInt(40);
+        header.putInt(40)
+                .putInt(width)
+                .putInt(height)
+                .putShort((short) 1)
+                .putShort((short) 24);
+        fourcc(header, "MJPG");
+        header.putInt(width * height * 3)
+                .putInt(0).putInt(0).putInt(0).putInt(0);
+
+        fourcc(header, "LIST").putInt(0);
+        fourcc(header, "movi");
+        channel.write(header.flip(), 0);
+    }
+
+    static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static ByteBuffer fourcc(ByteBuffer buffer, String tag) {
+        return buffer.put(tag.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Add frame number {@code index} to the file, first waiting for all the frames before it.
+     *
+     * @param index the frame number, starting at zero with no gaps
+     * @param jpeg  the encoded frame, or {@code null} if it couldn't be encoded (so the frames after it don't wait
+     *              forever)
+     * @return false if the frame was left out because the file is full
+     */
+    synchronized boolean write(int index, byte[] jpeg) throws IOException, InterruptedException {
+        while (next != index) wait();
+        try {
+            if (jpeg == null) return true;
+            var padded = jpeg.length + (jpeg.length & 1);
+            // leave room for this frame's index entry, and the ones before it
+            if (position + 8 + padded + 8 + 16L * (frames + 1) > MAX_SIZE) {
+                full = true;
+                return false;
+            }
+
+            var chunk = buffer(8);
+            fourcc(chunk, "00dc").putInt(jpeg.length);
+            var data = ByteBuffer.wrap(jpeg);
+            var padding = ByteBuffer.allocate(padded - jpeg.length);
+            channel.position(position);
+            var buffers = new ByteBuffer[]{chunk.flip(), data, padding};
+            for (var written = 0L; written < 8 + padded; ) written += channel.write(buffers);
+
+            if (frames == sizes.length) sizes = Arrays.copyOf(sizes, frames * 2);
+            sizes[frames++] = jpeg.length;
+            maxFrameSize = Math.max(maxFrameSize, jpeg.length);
+            position += 8 + padded;
+            return true;
+        } finally {
+            next++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return whether frames have been left out because the file would have been too big
+     */
+    synchronized boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Write the index and fill in the header. All the frames that were going to be written need to be by now.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            var index = buffer(8 + 16 * frames);
+            fourcc(index, "idx1").putInt(16 * frames);
+            var offset = 4;
+            for (var i = 0; i < frames; i++) {
+                fourcc(index, "00dc").putInt(AVIIF_KEYFRAME).putInt(offset).putInt(sizes[i]);
+                offset += 8 + sizes[i] + (sizes[i] & 1);
+            }
+            channel.position(position);
+            index.flip();
+            while (index.hasRemaining()) channel.write(index);
+
+            var end = position + 8 + 16L * frames;
+            patch(RIFF_SIZE, (int) (end - 8));
+            patch(AVIH_MAX_BYTES_PER_SEC, maxFrameSize * fps);
+            patch(AVIH_TOTAL_FRAMES, frames);
+            patch(AVIH_SUGGESTED_BUFFER, maxFrameSize);
+            patch(STRH_LENGTH, frames);
+            patch(STRH_SUGGESTED_BUFFER, maxFrameSize);
+            patch(MOVI_SIZE, (int) (position - MOVI_START));
+        } finally {
+            channel.close();
+        }
+    }
+
+    void patch(int at, int value) throws IOException {
+        channel.write(buffer(4).putInt(value).flip(), at);
+    }
+}
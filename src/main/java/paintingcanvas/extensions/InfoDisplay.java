@@ -63,11 +63,11 @@ public class InfoDisplay implements RenderLifecycle {
         x += mouse.x;
         y += mouse.y;
 
-        var cmp = InternalCanvas.panel;
+        var renderer = InternalCanvas.renderer;
 
         int hex;
         try {
-            hex = cmp.image.getRGB(mouse.x, mouse.y);
+            hex = renderer.image.getRGB(mouse.x, mouse.y);
         } catch (ArrayIndexOutOfBoundsException e) {
             hex = 0xffffffff;
         }
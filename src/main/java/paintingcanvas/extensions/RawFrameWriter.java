@@ -0,0 +1,137 @@
+package paintingcanvas.extensions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Writes uncompressed frames into a memory-mapped file, used by {@link Recorder#recordRaw(Path)} and read back with
+ * {@link RawFrames}.
+ * </p>
+ * <p>
+ * The file is a {@value HEADER_SIZE} byte header, then every frame's ARGB pixels one after the other (each frame is
+ * {@code width * height} little-endian ints), then an index with the canvas frame number of each captured frame.
+ * Space for the frames is mapped a few hundred megabytes at a time ahead of where they're written, so saving a frame
+ * is a single copy of its pixels into the file's pages, and the OS writes them out in the background.
+ * </p>
+ * <p>
+ * Every frame has a fixed place in the file, so frames can be written from several threads at once and in any order.
+ * </p>
+ */
+class RawFrameWriter implements Closeable {
+    static final int MAGIC = 0x46524350; // "PCRF"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    // where the fields in the header are
+    static final int WIDTH = 8;
+    static final int HEIGHT = 12;
+    static final int FPS = 16;
+    static final int FRAME_COUNT = 20;
+    static final int DATA_OFFSET = 24;
+    static final int INDEX_OFFSET = 32;
+    // how much of the file gets mapped at once
+    static final long SEGMENT_SIZE = 1 << 28;
+
+    final FileChannel channel;
+    final int width, height;
+    final long frameSize;
+    final int segmentFrames;
+    final List<IntBuffer> segments = new ArrayList<>();
+    long[] frameNumbers = new long[256];
+    int frames = 0;
+
+    /**
+     * Create the file (replacing it if it exists) and write the header
+     *
+     * @param path   where to write the frames
+     * @param width  the width of every frame
+     * @param height the height of every frame
+     * @param fps    how many frames per second the canvas was running at
+     */
+    RawFrameWriter(Path path, int width, int height, int fps) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.frameSize = (long) width * height * 4;
+        this.segmentFrames = (int) Math.max(1, SEGMENT_SIZE / frameSize);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        var header = buffer(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(width)
+                .putInt(height)
+                .putInt(fps)
+                .putInt(0)
+                .putLong(HEADER_SIZE)
+                .putLong(0);
+        channel.write(header.position(HEADER_SIZE).flip(), 0);
+    }
+
+    static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Put a frame in its place in the file.
+     *
+     * @param index       which frame of the file this is; every index up to the last one needs to be written
+     * @param pixels      the frame's ARGB pixels, {@code width * height} of them
+     * @param frameNumber which frame of the canvas this is
+     */
+    void write(int index, int[] pixels, long frameNumber) throws IOException {
+        IntBuffer segment;
+        synchronized (this) {
+            var s = index / segmentFrames;
+            while (segments.size() <= s) {
+                var start = HEADER_SIZE + segments.size() * segmentFrames * frameSize;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, segmentFrames * frameSize)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asIntBuffer());
+            }
+            segment = segments.get(s);
+
+            while (index >= frameNumbers.length) frameNumbers = Arrays.copyOf(frameNumbers, frameNumbers.length * 2);
+            frameNumbers[index] = frameNumber;
+            frames = Math.max(frames, index + 1);
+        }
+
+        // frames never overlap, so the copy doesn't need the lock
+        segment.put((index % segmentFrames) * width * height, pixels, 0, width * height);
+    }
+
+    /**
+     * Write the index after the last frame and fill in the header. All the frames need to be written by now.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            segments.clear();
+            var indexOffset = HEADER_SIZE + frames * frameSize;
+            var index = buffer(8 * frames);
+            for (var i = 0; i < frames; i++) index.putLong(frameNumbers[i]);
+            index.flip();
+            for (var at = indexOffset; index.hasRemaining(); ) at += channel.write(index, at);
+
+            channel.write(buffer(4).putInt(frames).flip(), FRAME_COUNT);
+            channel.write(buffer(8).putLong(indexOffset).flip(), INDEX_OFFSET);
+            // the last segment was mapped past the last frame, so cut off the empty space
+            try {
+                channel.truncate(indexOffset + 8L * frames);
+            } catch (IOException ignored) {
+                // some systems won't shrink a file that is still mapped, it's fine to leave it
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package paintingcanvas.extensions;
+
+import java.awt.image.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * Reads back the frames recorded by {@link Recorder#recordRaw(Path)}.
+ * </p>
+ * <p>
+ * Frames aren't loaded into memory: {@link #frame(int)} maps that part of the file and gives you a
+ * {@link BufferedImage} that reads its pixels straight out of it, so opening a frame doesn't copy anything. This makes
+ * it cheap to go through a long recording and encode it afterwards however you like, on as many threads as you like.
+ * </p>
+ * <pre>{@code
+ * try (RawFrames frames = new RawFrames(Path.of("capture.raw"))) {
+ *     for (int i = 0; i < frames.size(); i++)
+ *         ImageIO.write(frames.frame(i), "png", new File("frame_" + i + ".png"));
+ * }
+ * }</pre>
+ * <p>
+ * The images are read-only, and shouldn't be used after the {@code RawFrames} is closed. Draw one onto a normal
+ * {@link BufferedImage} if you need to change it or keep it around.
+ * </p>
+ */
+public class RawFrames implements Closeable {
+    final FileChannel channel;
+    final int width, height, fps, frames;
+    final long dataOffset;
+    final long[] frameNumbers;
+
+    /**
+     * Open a raw capture file
+     *
+     * @param path the file {@link Recorder#recordRaw(Path)} wrote to
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file isn't a raw capture, or is from a different version
+     */
+    public RawFrames(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            var header = RawFrameWriter.buffer(RawFrameWriter.HEADER_SIZE);
+            for (var at = 0; header.hasRemaining(); ) {
+                var read = channel.read(header, at);
+                if (read < 0) break;
+                at += read;
+            }
+            header.flip();
+            if (header.remaining() < RawFrameWriter.HEADER_SIZE || header.getInt() != RawFrameWriter.MAGIC)
+                throw new IllegalArgumentException(String.format("`%s` isn't a raw capture", path));
+            var version = header.getInt();
+            if (version != RawFrameWriter.VERSION)
+                throw new IllegalArgumentException(String.format("`%s` is from version %d, only version %d can be read", path, version, RawFrameWriter.VERSION));
+
+            this.width = header.getInt(RawFrameWriter.WIDTH);
+            this.height = header.getInt(RawFrameWriter.HEIGHT);
+            this.fps = header.getInt(RawFrameWriter.FPS);
+            this.frames = header.getInt(RawFrameWriter.FRAME_COUNT);
+            this.dataOffset = header.getLong(RawFrameWriter.DATA_OFFSET);
+            var indexOffset = header.getLong(RawFrameWriter.INDEX_OFFSET);
+
+            var index = RawFrameWriter.buffer(8 * frames);
+            for (var at = indexOffset; index.hasRemaining(); ) {
+                var read = channel.read(index, at);
+                if (read < 0) throw new IllegalArgumentException(String.format("`%s` was cut off", path));
+                at += read;
+            }
+            this.frameNumbers = new long[frames];
+            index.flip().asLongBuffer().get(frameNumbers);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of frames in the file
+     */
+    public int size() {
+        return frames;
+    }
+
+    /**
+     * @return the width of every frame
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of every frame
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the frames per second the canvas was running at while recording
+     */
+    public int getFps() {
+        return fps;
+    }
+
+    /**
+     * @param i which frame of the file
+     * @return the canvas frame number it was captured on, see {@link paintingcanvas.canvas.Canvas#getFrame()}
+     */
+    public long getFrameNumber(int i) {
+        return frameNumbers[i];
+    }
+
+    /**
+     * Map a frame of the file into an image, without copying it.
+     *
+     * @param i which frame of the file
+     * @return a read-only image backed by the file
+     * @throws IOException if the frame can't be mapped
+     */
+    public BufferedImage frame(int i) throws IOException {
+        if (i < 0 || i >= frames) throw new IndexOutOfBoundsException(String.format("Frame %d is out of bounds for %d frames", i, frames));
+        var frameSize = (long) width * height * 4;
+        var pixels = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + i * frameSize, frameSize)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+
+        var colorModel = ColorModel.getRGBdefault();
+        var sampleModel = new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, width, height,
+                new int[]{0xff0000, 0xff00, 0xff, 0xff000000});
+        var raster = Raster.createWritableRaster(sampleModel, new MappedDataBuffer(pixels), null);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A {@link DataBuffer} that reads its pixels out of an {@link IntBuffer} instead of an array
+     */
+    static class MappedDataBuffer extends DataBuffer {
+        final IntBuffer pixels;
+
+        MappedDataBuffer(IntBuffer pixels) {
+            super(TYPE_INT, pixels.capacity());
+            this.pixels = pixels;
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            return pixels.get(i);
+        }
+
+        @Override
+        public void setElem(int bank, int i, int val) {
+            pixels.put(i, val);
+        }
+    }
+}
@@ -3,37 +3,149 @@ package paintingcanvas.extensions;
 import paintingcanvas.InternalCanvas;
 import paintingcanvas.canvas.RenderLifecycle;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A class that allows you to record the canvas to a image sequence, can be combined using ffmpeg
  * or something similar
  * <p>
  * stores the images in a temporary directory using {@link Files#createTempDirectory}
+ * <p>
+ * Or, with {@link #recordVideo(Path)}, straight to a Motion-JPEG AVI file that can be played without any other tools.
+ * Or, with {@link #recordRaw(Path)}, to a file of uncompressed frames that can be encoded later.
+ * <p>
+ * Encoding an image takes much longer than rendering one, so it isn't done on the render thread. Each frame is copied
+ * into one of a few reused buffers and handed to a pool of encoder threads. If the encoders can't keep up and every
+ * buffer is in use, the {@link Backpressure} setting decides what happens to the next frame. Files are always numbered
+ * in the order the frames were rendered, with no gaps, whichever encoder finishes first.
+ * <pre>{@code
+ * Recorder recorder = new Recorder().encoders(4).backpressure(Recorder.Backpressure.Drop);
+ * recorder.attach();
+ * recorder.record(Path.of("rec"), "png");
+ * // ...
+ * recorder.stop();
+ * }</pre>
  */
 public class Recorder implements RenderLifecycle {
-    // == Screenshot ==
-    final Object imgSync = new Object();
-    BufferedImage img;
+    // the compression quality used for frames when degrading, for lossless and lossy formats
+    static final float DEGRADED_LOSSLESS_QUALITY = 0.75f;
+    static final float DEGRADED_LOSSY_QUALITY = 0.5f;
 
     // == Image Sequence ==
-    boolean recording = false;
+    volatile boolean recording = false;
     int inc;
     Path dir;
     String format;
 
+    // == Video ==
+    // null when recording an image sequence
+    AviWriter video;
+    Path videoPath;
+    int videoWidth, videoHeight;
+    float videoQuality = 0.9f;
+
+    // == Raw ==
+    // null unless recording raw frames
+    RawFrameWriter raw;
+    Path rawPath;
+
+    // == Encoding ==
+    int encoderCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    int queueSize = 8;
+    Backpressure backpressure = Backpressure.Block;
+    ThreadPoolExecutor encoders;
+    // buffers that aren't waiting to be encoded, and how many have been made in total
+    BlockingQueue<BufferedImage> freeBuffers;
+    int buffers;
+    final AtomicInteger pending = new AtomicInteger();
+    volatile int droppedFrames;
+    volatile int degradedFrames;
+
+    /**
+     * Default: half the processors, at least one.
+     *
+     * @param encoders how many threads encode frames at once; only used by the next {@link #record(Path, String)}
+     * @return `this` for method chaining
+     */
+    public Recorder encoders(int encoders) {
+        if (encoders < 1) throw new IllegalArgumentException("A recorder needs at least one encoder");
+        this.encoderCount = encoders;
+        return this;
+    }
+
+    /**
+     * Default: 8.
+     *
+     * @param queueSize how many frames can be waiting to be encoded before the {@link Backpressure} kicks in;
+     *                  only used by the next {@link #record(Path, String)}
+     * @return `this` for method chaining
+     */
+    public Recorder queueSize(int queueSize) {
+        if (queueSize < 1) throw new IllegalArgumentException("The queue needs room for at least one frame");
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * Default: {@link Backpressure#Block}.
+     *
+     * @param backpressure what to do with a frame when the encoders have fallen behind
+     * @return `this` for method chaining
+     */
+    public Recorder backpressure(Backpressure backpressure) {
+        this.backpressure = backpressure;
+        return this;
+    }
+
+    /**
+     * Default: 0.9.
+     *
+     * @param quality the JPEG quality of each frame in a video, from 0 to 1; only used by the next
+     *                {@link #recordVideo(Path)}
+     * @return `this` for method chaining
+     */
+    public Recorder videoQuality(float quality) {
+        if (!(quality >= 0 && quality <= 1)) throw new IllegalArgumentException("Quality must be between 0 and 1");
+        this.videoQuality = quality;
+        return this;
+    }
+
+    /**
+     * @return how many frames were skipped by {@link Backpressure#Drop} in the current (or last) recording
+     */
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return how many frames were written at a lower quality by {@link Backpressure#Degrade} in the current (or last)
+     * recording
+     */
+    public int getDegradedFrames() {
+        return degradedFrames;
+    }
+
     public Recorder record(Path path, String format) {
+        if (this.recording) stop();
         this.dir = path;
         this.format = format;
-        this.inc = 0;
+        this.video = null;
+        this.raw = null;
 
         try {
             Files.createDirectory(path);
@@ -70,44 +182,328 @@ public class Recorder implements RenderLifecycle {
             return this;
         }
 
-        this.recording = true;
+        start();
+        return this;
+    }
+
+    /**
+     * Record the canvas to a Motion-JPEG AVI file, which most video players can open.
+     * The video is the size the canvas was when recording started, and plays at {@link
+     * paintingcanvas.canvas.CanvasOptions#fps}. Only the frames go in the file, so there's no
+     * {@code REC} indicator in it.
+     * <pre>{@code
+     * Recorder recorder = new Recorder();
+     * recorder.attach();
+     * recorder.recordVideo(Path.of("out.avi"));
+     * }</pre>
+     *
+     * @param file where to write the video; it is replaced if it already exists
+     * @return `this` for method chaining
+     */
+    public Recorder recordVideo(Path file) {
+        if (this.recording) stop();
+        var canvas = InternalCanvas.canvas;
+        this.videoPath = file;
+        this.videoWidth = canvas.getWidth();
+        this.videoHeight = canvas.getHeight();
+        this.raw = null;
+        try {
+            this.video = new AviWriter(file, videoWidth, videoHeight, canvas.getOptions().fps);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return this;
+        }
+
+        start();
+        return this;
+    }
+
+    /**
+     * Record the canvas to a file of uncompressed frames, to be read back with {@link RawFrames}.
+     * There's no encoding at all while recording, the encoder threads just copy each frame's pixels into a
+     * memory-mapped file, so this is the cheapest way to record a long headless render and encode it afterwards.
+     * It does take up a lot of space: {@code width * height * 4} bytes a frame, so the disk might be what holds it
+     * back.
+     * <p>
+     * Every frame is the size the canvas was when recording started; frames of any other size are skipped, and
+     * counted in {@link #getDroppedFrames()}.
+     * <pre>{@code
+     * recorder.recordRaw(Path.of("capture.raw"));
+     * // ... later
+     * try (RawFrames frames = new RawFrames(Path.of("capture.raw"))) {
+     *     BufferedImage first = frames.frame(0);
+     * }
+     * }</pre>
+     *
+     * @param file where to write the frames; it is replaced if it already exists
+     * @return `this` for method chaining
+     */
+    public Recorder recordRaw(Path file) {
+        if (this.recording) stop();
+        var canvas = InternalCanvas.canvas;
+        this.rawPath = file;
+        this.video = null;
+        try {
+            this.raw = new RawFrameWriter(file, canvas.getWidth(), canvas.getHeight(), canvas.getOptions().fps);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return this;
+        }
+
+        start();
         return this;
     }
 
+    void start() {
+        this.inc = 0;
+        this.droppedFrames = 0;
+        this.degradedFrames = 0;
+        // idle encoders time out, so they don't keep the program running if stop is never called
+        this.encoders = new ThreadPoolExecutor(encoderCount, encoderCount, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        this.encoders.allowCoreThreadTimeOut(true);
+        this.freeBuffers = new ArrayBlockingQueue<>(queueSize);
+        this.buffers = 0;
+        this.recording = true;
+    }
+
+    /**
+     * Stop recording, and wait for the frames that are still being encoded to be written.
+     *
+     * @return `this` for method chaining
+     */
     public Recorder stop() {
-        this.recording = false;
+        ThreadPoolExecutor encoders;
+        synchronized (this) {
+            if (!this.recording) return this;
+            this.recording = false;
+            encoders = this.encoders;
+            encoders.shutdown();
+        }
+
+        try {
+            while (!encoders.awaitTermination(1, TimeUnit.SECONDS))
+                System.out.printf("Waiting for %d frames to be encoded\n", pending.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (droppedFrames > 0) System.out.printf("Dropped %d frames\n", droppedFrames);
+        if (degradedFrames > 0) System.out.printf("Wrote %d frames at a lower quality\n", degradedFrames);
+
+        if (raw != null) {
+            try {
+                raw.close();
+                System.out.printf("Saved %d raw frames to %s\n", raw.frames, rawPath.toAbsolutePath());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return this;
+        }
+        if (video != null) {
+            if (video.isFull())
+                System.err.printf("Video `%s` hit the %dMB limit for AVI files, so the end is missing\n", videoPath, AviWriter.MAX_SIZE >> 20);
+            try {
+                video.close();
+                System.out.printf("Saved video to %s\n", videoPath.toAbsolutePath());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return this;
+        }
         System.out.printf("Maybe: ffmpeg -r %d -i '%s/tmp_%%d.%s' -vf 'pad=ceil(iw/2)*2:ceil(ih/2)*2' -y -an out.mov", InternalCanvas.canvas.getOptions().fps, this.dir, this.format);
         return this;
     }
 
     public void screenshot(File file, String format) {
+        System.out.println(file.getAbsolutePath());
+        // take a copy, the renderer will draw over its own image while this is being written
+        write(InternalCanvas.renderer.snapshot(), file, format);
+    }
+
+    void write(BufferedImage img, File file, String format) {
         try {
-            System.out.println(file.getAbsolutePath());
+            if (!ImageIO.write(img, format, file)) unsupported(format);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            synchronized (imgSync) {
-                if (!ImageIO.write(img, format, file)) {
-                    var supported = String.join(", ", ImageIO.getWriterFormatNames());
-                    System.err.printf("No appropriate image writer found for format `%s`, supported formats are [%s]\n", format, supported);
-                    System.err.print("Please note the image format must support transparency.\n");
-                }
+    /**
+     * Write an image with the cheapest settings the format has: lighter compression for lossless formats, and lower
+     * quality for lossy ones.
+     */
+    void writeDegraded(BufferedImage img, File file, String format) {
+        var writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            unsupported(format);
+            return;
+        }
+
+        var writer = writers.next();
+        var param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            if (param.getCompressionType() == null) param.setCompressionType(param.getCompressionTypes()[0]);
+            param.setCompressionQuality(param.isCompressionLossless() ? DEGRADED_LOSSLESS_QUALITY : DEGRADED_LOSSY_QUALITY);
+        }
+
+        try {
+            Files.deleteIfExists(file.toPath());
+            try (var out = ImageIO.createImageOutputStream(file)) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(img, null, null), param);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            writer.dispose();
         }
     }
 
-    @Override
-    public void renderEnd(Graphics2D g) {
-        var canvas = InternalCanvas.canvas;
-        var cmp = InternalCanvas.panel;
+    static void unsupported(String format) {
+        var supported = String.join(", ", ImageIO.getWriterFormatNames());
+        System.err.printf("No appropriate image writer found for format `%s`, supported formats are [%s]\n", format, supported);
+        System.err.print("Please note the image format must support transparency.\n");
+    }
+
+    /**
+     * Copy the last rendered frame into a free buffer and queue it up for encoding.
+     * Called on the render thread.
+     */
+    synchronized void capture() {
+        if (!recording) return;
+        var image = InternalCanvas.renderer.image;
+        if (image == null) return;
+        // every raw frame has to be the same size
+        if (raw != null && (image.getWidth() != raw.width || image.getHeight() != raw.height)) {
+            droppedFrames++;
+            return;
+        }
 
-        synchronized (imgSync) {
-            img = cmp.image;
+        // raw frames aren't encoded, so there's nothing to make cheaper
+        var degrade = backpressure == Backpressure.Degrade && raw == null && pending.get() >= (queueSize + 1) / 2;
+        BufferedImage buffer;
+        try {
+            buffer = takeBuffer();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (buffer == null) {
+            droppedFrames++;
+            return;
+        }
+        if (video != null) {
+            // JPEG has no transparency, and every frame of a video is the same size
+            var g = buffer.createGraphics();
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, videoWidth, videoHeight);
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+        } else {
+            if (buffer.getWidth() != image.getWidth() || buffer.getHeight() != image.getHeight())
+                buffer = newBuffer();
+            image.copyData(buffer.getRaster());
+        }
+        if (degrade) degradedFrames++;
+
+        // the number is picked now, so the frames are in order no matter which encoder finishes first
+        var index = inc++;
+        var frame = buffer;
+        pending.incrementAndGet();
+        if (video != null) {
+            var video = this.video;
+            var quality = degrade ? Math.min(videoQuality, DEGRADED_LOSSY_QUALITY) : videoQuality;
+            encoders.execute(() -> {
+                byte[] jpeg = null;
+                try {
+                    jpeg = jpeg(frame, quality);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                try {
+                    video.write(index, jpeg);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    freeBuffers.offer(frame);
+                    pending.decrementAndGet();
+                }
+            });
+            return;
+        }
+        if (raw != null) {
+            var raw = this.raw;
+            var frameNumber = InternalCanvas.frame;
+            encoders.execute(() -> {
+                try {
+                    raw.write(index, ((DataBufferInt) frame.getRaster().getDataBuffer()).getData(), frameNumber);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    freeBuffers.offer(frame);
+                    pending.decrementAndGet();
+                }
+            });
+            return;
+        }
+
+        var file = this.dir.resolve(Path.of(String.format("tmp_%d.%s", index, this.format))).toFile();
+        var format = this.format;
+        encoders.execute(() -> {
+            try {
+                if (degrade) writeDegraded(frame, file, format);
+                else write(frame, file, format);
+                System.out.println(file.getAbsolutePath());
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                freeBuffers.offer(frame);
+                pending.decrementAndGet();
+            }
+        });
+    }
+
+    static byte[] jpeg(BufferedImage image, float quality) throws IOException {
+        var writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        var param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
         }
+        return bytes.toByteArray();
+    }
 
-        if (!recording || this.dir == null) return;
+    BufferedImage newBuffer() {
+        if (video != null) return new BufferedImage(videoWidth, videoHeight, BufferedImage.TYPE_INT_RGB);
+        var image = InternalCanvas.renderer.image;
+        return new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * @return a buffer to copy the frame into, or {@code null} if the frame should be dropped
+     */
+    BufferedImage takeBuffer() throws InterruptedException {
+        var buffer = freeBuffers.poll();
+        if (buffer != null) return buffer;
+        if (buffers < queueSize) {
+            buffers++;
+            return newBuffer();
+        }
+        if (backpressure == Backpressure.Drop) return null;
+        return freeBuffers.take();
+    }
 
-        var size = cmp.getSize();
+    @Override
+    public void renderEnd(Graphics2D g) {
+        var canvas = InternalCanvas.canvas;
+        if (!recording) return;
+
+        var size = new Dimension(canvas.getWidth(), canvas.getHeight());
         var text = "REC";
         g.setFont(g.getFont().deriveFont(Font.PLAIN, 30));
         var width = g.getFontMetrics().stringWidth(text);
@@ -121,7 +517,28 @@ public class Recorder implements RenderLifecycle {
         g.setColor(Color.WHITE);
         g.drawOval(size.width - 40 - width, 10, 25, 25);
 
-        screenshot(this.dir.resolve(Path.of(String.format("tmp_%d.%s", inc++, this.format))).toFile(), this.format);
+        // still on the render thread, so the current frame can't be drawn over until this returns
+        capture();
+    }
+
+    /**
+     * What to do with a new frame when the encoders have fallen behind
+     */
+    public enum Backpressure {
+        /**
+         * Wait for a frame to finish encoding. Every frame is recorded at full quality, but the canvas slows down to
+         * however fast the frames can be encoded.
+         */
+        Block,
+        /**
+         * Skip the frame. The canvas keeps running at full speed, but the recording will be missing some frames.
+         */
+        Drop,
+        /**
+         * Once the queue is half full, write frames with cheaper settings (lighter compression, or lower quality
+         * for formats like JPEG) so the encoders can catch up. If it still fills up, wait like {@link #Block}.
+         */
+        Degrade,
     }
 }
 
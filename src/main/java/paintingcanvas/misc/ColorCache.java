@@ -0,0 +1,39 @@
+package paintingcanvas.misc;
+
+import java.awt.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Elements keep their colors as packed ARGB ints ({@code 0xAARRGGBB}, like {@link Color#getRGB()}), so animating a
+ * color is just math on ints. A {@link Color} is only needed to draw with, and this hands out a shared one for each
+ * color instead of making a new one every frame.
+ * </p>
+ * <p>
+ * It only remembers the last {@link #SIZE} or so colors it was asked for, so colors that keep changing (like in the
+ * middle of a {@link paintingcanvas.animation.ColorAnimation}) still need a new {@link Color} now and then.
+ * </p>
+ * <pre>{@code
+ * Color red = ColorCache.get(0xFFFF0000);
+ * }</pre>
+ */
+public class ColorCache {
+    static final int SIZE = 4096;
+    static final AtomicReferenceArray<Color> colors = new AtomicReferenceArray<>(SIZE);
+
+    private ColorCache() {
+    }
+
+    /**
+     * @param argb the color as a packed int, {@code 0xAARRGGBB}
+     * @return A {@link Color} with those components
+     */
+    public static Color get(int argb) {
+        var i = (argb * 0x9E3779B9) >>> 20;
+        var color = colors.get(i);
+        if (color != null && color.getRGB() == argb) return color;
+        color = new Color(argb, true);
+        colors.set(i, color);
+        return color;
+    }
+}
@@ -0,0 +1,104 @@
+package paintingcanvas.misc;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * The parts of the canvas that need to be drawn again, see {@link paintingcanvas.canvas.CanvasOptions#dirtyRegions}.
+ * </p>
+ * <p>
+ * It's kept as a few rectangles that don't overlap: a new rectangle that touches one already in here is merged into
+ * it, and if there end up being too many they're all merged into one big rectangle. Or it can be {@link #isFull()
+ * full}, meaning everything needs to be drawn again.
+ * </p>
+ */
+public class DamageRegion {
+    static final int MAX_RECTS = 16;
+    final List<Rectangle> rects = new ArrayList<>();
+    boolean full = false;
+
+    /**
+     * Mark an area as damaged.
+     *
+     * @param area the area, in canvas coordinates (it isn't kept, so it's fine to change it afterwards)
+     */
+    public void add(Rectangle area) {
+        if (full || area.isEmpty()) return;
+        var merged = new Rectangle(area);
+        // keep merging until it doesn't touch anything else
+        for (var i = 0; i < rects.size(); i++) {
+            var rect = rects.get(i);
+            if (!rect.intersects(merged)) continue;
+            merged.add(rect);
+            rects.remove(i);
+            i = -1;
+        }
+        rects.add(merged);
+
+        if (rects.size() <= MAX_RECTS) return;
+        var all = rects.get(0);
+        for (var rect : rects) all.add(rect);
+        rects.clear();
+        rects.add(all);
+    }
+
+    /**
+     * Mark everything the other region covers as damaged
+     *
+     * @param other the other region
+     */
+    public void add(DamageRegion other) {
+        if (other.full) addAll();
+        else for (var rect : other.rects) add(rect);
+    }
+
+    /**
+     * Mark the whole canvas as damaged
+     */
+    public void addAll() {
+        full = true;
+        rects.clear();
+    }
+
+    /**
+     * @return whether the whole canvas is damaged
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * @return whether nothing is damaged
+     */
+    public boolean isEmpty() {
+        return !full && rects.isEmpty();
+    }
+
+    /**
+     * @return the damaged areas, which don't overlap; empty if {@link #isFull()}
+     */
+    public List<Rectangle> getRects() {
+        return rects;
+    }
+
+    /**
+     * @return the smallest rectangle around all the damaged areas, or {@code null} if {@link #isFull()} or
+     * {@link #isEmpty()}
+     */
+    public Rectangle getBounds() {
+        if (rects.isEmpty()) return null;
+        var out = new Rectangle(rects.get(0));
+        for (var rect : rects) out.add(rect);
+        return out;
+    }
+
+    /**
+     * Forget all the damage
+     */
+    public void clear() {
+        full = false;
+        rects.clear();
+    }
+}
@@ -1,92 +1,517 @@
 package paintingcanvas.misc;
 
+import paintingcanvas.InternalCanvas;
 import paintingcanvas.drawable.Drawable;
+import paintingcanvas.drawable.Interactable;
 
-import java.util.Comparator;
+import java.awt.*;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Vector;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
-// TODO: Put drawable sync here
+/**
+ * <p>
+ * Holds all the elements on the canvas, in the order they should be drawn.
+ * </p>
+ * <p>
+ * Elements are kept in a bucket for each layer, and the buckets are sorted by layer. Within a layer, elements are
+ * drawn in the order they were added (or moved onto that layer). So adding, removing or changing the layer of an
+ * element never needs everything to be sorted again.
+ * </p>
+ * <p>
+ * The renderer never waits for user code. It draws from a copy of the element list ({@link #snapshot()}) that's only
+ * rebuilt after elements are added, removed or moved between layers, and setters write straight to the elements and
+ * then {@link #publish()}. To keep the changes made in an {@link #atomic(Runnable)} block on the same frame, a frame
+ * that was rendered while one of them was running is thrown away, and the last complete frame is shown again instead
+ * (see {@link #internalBeginRead()}).
+ * </p>
+ * <p>
+ * Elements put themselves on a list when they change ({@link #internalMarkDirty(Drawable)}), and only those are
+ * measured again and moved around in the index each frame. What's on the screen is only looked up again when
+ * something moved or the viewport did.
+ * </p>
+ */
 public class ElementContainer {
+    // only one atomic block runs at a time
     static final Object drawableSync = new Object();
-    final List<Drawable<?>> elements = new Vector<>();
-    boolean dirty = false;
-    int minLayer = 0;
-    int maxLayer = 0;
+    static final Object starvingSync = new Object();
+    static final AtomicLong mutations = new AtomicLong();
+    // incremented at the start and end of every atomic block, so it's odd while one is running
+    static volatile long version = 0;
+    static volatile boolean starving = false;
+    // elements that changed since they were last measured, swapped with the other list to take them
+    static final Object dirtySync = new Object();
+    static ArrayList<Drawable<?>> dirty = new ArrayList<>();
+    static ArrayList<Drawable<?>> taken = new ArrayList<>();
+    // guards layers and layerOf; only ever held by the methods in here
+    final Object structureSync = new Object();
+    // guards the index and the bounds of the elements
+    final Object indexSync = new Object();
+    final TreeMap<Integer, LinkedHashSet<Drawable<?>>> layers = new TreeMap<>();
+    // which bucket each element is in, in case its layer was changed behind our back
+    final IdentityHashMap<Drawable<?>, Integer> layerOf = new IdentityHashMap<>();
+    final SpatialGrid index = new SpatialGrid(64);
+    // what the last internalUpdate found in the viewport, in drawing order, and the viewport it looked in
+    final ArrayList<SpatialGrid.Entry> visible = new ArrayList<>();
+    final Rectangle viewport = new Rectangle();
+    boolean visibleStale = true;
+    // elements add themselves before their constructors are done, so new ones are measured again on the next frame
+    final ArrayList<SpatialGrid.Entry> settling = new ArrayList<>();
+    // elements that have to be checked for changes every frame, see Drawable.internalPolled
+    final ArrayList<Drawable<?>> polled = new ArrayList<>();
+    // the elements in drawing order, or null if they have changed since it was made
+    volatile Drawable<?>[] snapshot = new Drawable<?>[0];
+    Drawable<?>[] indexed = snapshot;
 
     /**
-     * ALL MODIFICATIONS TO DRAWABLES MUST BE DONE THROUGH THIS METHOD
+     * Run some code that changes elements, making sure all of its changes show up on the same frame.
+     * Only one atomic block can run at a time.
      *
      * @param callable The code to run
      */
     public static <T> T atomic(Callable<T> callable) {
+        return atomic(callable, true);
+    }
+
+    /**
+     * Run some code that changes elements, making sure all of its changes show up on the same frame.
+     * Only one atomic block can run at a time.
+     *
+     * @param runnable The code to run
+     */
+    public static void atomic(Runnable runnable) {
+        atomic(() -> {
+            runnable.run();
+            return null;
+        }, true);
+    }
+
+    /**
+     * Like {@link #atomic(Runnable)}, but never waits for the renderer to catch up.
+     * This is for the frame loop itself, which the renderer might be waiting on.
+     *
+     * @param runnable The code to run
+     */
+    public static void internalAtomic(Runnable runnable) {
+        atomic(() -> {
+            runnable.run();
+            return null;
+        }, false);
+    }
+
+    static <T> T atomic(Callable<T> callable, boolean yieldToRenderer) {
+        // already inside an atomic block, so it's part of that one
+        if (Thread.holdsLock(drawableSync)) return call(callable);
+
+        // if atomic blocks keep overlapping the frames, give the renderer a chance to get one out
+        if (yieldToRenderer && starving) {
+            synchronized (starvingSync) {
+                try {
+                    if (starving) starvingSync.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
         synchronized (drawableSync) {
+            version++;
+            // keep the block's writes from being seen before the counter goes odd
+            VarHandle.releaseFence();
             try {
-                return callable.call();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                return call(callable);
+            } finally {
+                version++;
+                mutations.incrementAndGet();
             }
         }
     }
 
+    static <T> T call(Callable<T> callable) {
+        try {
+            return callable.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Make changes to an element visible to the renderer.
+     * Setters like {@link paintingcanvas.drawable.Positionable#setPos(int, int)} call this after writing, so you only
+     * need it if you change an element through its {@code internalSet} methods.
+     */
+    public static void publish() {
+        mutations.incrementAndGet();
+    }
+
     /**
-     * ALL MODIFICATIONS TO DRAWABLES MUST BE DONE THROUGH THIS METHOD
+     * Have the canvas measure an element again on the next frame, because it changed in a way that might have moved
+     * it. Elements call this themselves (only once until they've been measured, see
+     * {@link Drawable#internalTakeDirty()}).
      *
-     * @param runnable The code to run
+     * @param drawable the element
      */
-    public static void atomic(Runnable runnable) {
-        synchronized (drawableSync) {
-            runnable.run();
+    public static void internalMarkDirty(Drawable<?> drawable) {
+        synchronized (dirtySync) {
+            dirty.add(drawable);
+        }
+    }
+
+    /**
+     * @return how many times elements have been changed, see {@link #publish()}
+     */
+    public static long getMutations() {
+        return mutations.get();
+    }
+
+    /**
+     * Call before rendering a frame. Pass the result to {@link #internalEndRead(long)} once it's done.
+     *
+     * @return a token for the state of the elements, or -1 if an atomic block is running right now
+     */
+    public static long internalBeginRead() {
+        // read the counter first, so everything published before now can be seen
+        mutations.get();
+        var v = version;
+        return (v & 1) == 0 ? v : -1;
+    }
+
+    /**
+     * Call after rendering a frame, to check if it can be shown.
+     *
+     * @param token the result of {@link #internalBeginRead()}
+     * @return false if an atomic block ran while the frame was being rendered, so it might only have part of it
+     */
+    public static boolean internalEndRead(long token) {
+        // keep the frame's reads of the elements from moving after the check
+        VarHandle.acquireFence();
+        return token >= 0 && version == token;
+    }
+
+    /**
+     * Tell atomic blocks whether they should hold off until the renderer gets a frame out.
+     *
+     * @param starving true if the renderer keeps having to throw frames away
+     */
+    public static void internalSetStarving(boolean starving) {
+        if (ElementContainer.starving == starving) return;
+        ElementContainer.starving = starving;
+        if (!starving) synchronized (starvingSync) {
+            starvingSync.notifyAll();
+        }
+    }
+
+    /**
+     * Get all the elements on the canvas in drawing order (back to front).
+     * The array is shared, so don't change it; it's replaced rather than updated when elements are added or removed.
+     *
+     * @return the elements
+     */
+    public Drawable<?>[] snapshot() {
+        var out = snapshot;
+        if (out != null) return out;
+        synchronized (structureSync) {
+            if (snapshot == null) {
+                var list = new ArrayList<Drawable<?>>(layerOf.size());
+                for (var layer : layers.values()) list.addAll(layer);
+                snapshot = list.toArray(new Drawable<?>[0]);
+            }
+            return snapshot;
         }
     }
 
     public void foreach(DrawableConsumer consumer) {
-        synchronized (drawableSync) {
-            if (dirty) {
-                elements.sort(Comparator.comparingInt(a -> {
-                    int layer = a.getLayer();
-                    minLayer = Math.min(minLayer, layer);
-                    maxLayer = Math.max(maxLayer, layer);
-                    return layer;
-                }));
-                dirty = false;
+        for (var drawable : snapshot()) consumer.accept(drawable);
+    }
+
+    /**
+     * Run {@code consumer} on every element that could be seen in {@code viewport}, in drawing order.
+     * This also updates the bounding boxes of the elements that changed, and the index used by
+     * {@link #elementsIn(Rectangle)}.
+     *
+     * @param viewport the visible area of the canvas, in canvas coordinates
+     * @param consumer the code to run
+     */
+    public void foreachIn(Rectangle viewport, DrawableConsumer consumer) {
+        internalUpdate(viewport, null);
+        foreachVisible(viewport, consumer);
+    }
+
+    /**
+     * Update the bounding boxes of the elements that changed and the index used by {@link #elementsIn(Rectangle)},
+     * and find the elements that could be seen in {@code viewport} for
+     * {@link #foreachVisible(Rectangle, DrawableConsumer)}. Called by the renderer once a frame.
+     * <p>
+     * With {@code damage}, this also works out what parts of the canvas changed since the last time. An element has
+     * changed if its bounding box or its {@link Drawable#internalGetVersion() version} is different, and then both
+     * where it was and where it is now are damaged. If it changed and its new bounds aren't known, the whole canvas is.
+     *
+     * @param viewport the visible area of the canvas, in canvas coordinates
+     * @param damage   if not {@code null}, the areas that changed are added to it
+     */
+    public void internalUpdate(Rectangle viewport, DamageRegion damage) {
+        internalUpdate(viewport, damage, null);
+    }
+
+    /**
+     * Like {@link #internalUpdate(Rectangle, DamageRegion)}, also keeping track of what changed on each layer.
+     * An element that moved between layers damages both of them.
+     *
+     * @param viewport    the visible area of the canvas, in canvas coordinates
+     * @param damage      if not {@code null}, the areas that changed are added to it
+     * @param layerDamage gives the damage for a layer, or {@code null} if that layer doesn't need it
+     */
+    public void internalUpdate(Rectangle viewport, DamageRegion damage, IntFunction<DamageRegion> layerDamage) {
+        var elements = snapshot();
+        synchronized (indexSync) {
+            var settled = settling.size();
+            for (var i = 0; i < settled; i++) {
+                var entry = settling.get(i);
+                if (index.entries.get(entry.drawable) == entry) measure(entry, damage, layerDamage);
+            }
+            settling.subList(0, settled).clear();
+
+            if (elements != indexed) {
+                // elements were added, removed or moved between layers, so everything gets its new place in the
+                // drawing order, but only new and changed elements are measured
+                index.nextPass();
+                polled.clear();
+                for (var order = 0; order < elements.length; order++) {
+                    var drawable = elements[order];
+                    var entry = index.entry(drawable, order);
+                    if (drawable.internalPolled()) polled.add(drawable);
+                    if (!entry.measured) settling.add(entry);
+                    if (drawable.internalTakeDirty() || !entry.measured) measure(entry, damage, layerDamage);
+                }
+                index.removeStale(damage, layerDamage);
+                indexed = elements;
+                visibleStale = true;
+            }
+
+            // these mark themselves dirty if they changed, so they're measured below
+            for (var i = 0; i < polled.size(); i++) polled.get(i).internalCheckChanged();
+
+            ArrayList<Drawable<?>> changed;
+            synchronized (dirtySync) {
+                changed = dirty;
+                dirty = taken;
+                taken = changed;
+            }
+            for (var i = 0; i < changed.size(); i++) {
+                var drawable = changed.get(i);
+                // (already measured above, or not on the canvas)
+                if (!drawable.internalTakeDirty()) continue;
+                var entry = index.entries.get(drawable);
+                if (entry != null) measure(entry, damage, layerDamage);
             }
+            changed.clear();
 
-            for (Drawable<?> drawable : elements) {
-                consumer.accept(drawable);
+            if (visibleStale || !viewport.equals(this.viewport)) {
+                this.viewport.setBounds(viewport);
+                visible.clear();
+                index.collect(viewport, visible, true);
+                // the cells are bigger than the elements, so some of them are just off the edge
+                var n = 0;
+                for (var i = 0; i < visible.size(); i++) {
+                    var entry = visible.get(i);
+                    if (entry.bounds == null || entry.bounds.intersects(viewport)) visible.set(n++, entry);
+                }
+                visible.subList(n, visible.size()).clear();
+                visibleStale = false;
             }
         }
     }
 
-    public void setDirty() {
-        this.dirty = true;
+    /**
+     * Measure an element again and move it in the index, adding where it was and where it is now to the damage
+     */
+    void measure(SpatialGrid.Entry entry, DamageRegion damage, IntFunction<DamageRegion> layerDamage) {
+        var drawable = entry.drawable;
+        var version = drawable.internalGetVersion();
+        var layer = drawable.getLayer();
+        Rectangle bounds;
+        try {
+            bounds = drawable.internalUpdateBounds();
+        } catch (RuntimeException e) {
+            // still being made on another thread, so try again next frame
+            settling.add(entry);
+            return;
+        }
+        index.move(entry, bounds);
+        entry.measured = true;
+        // elements we don't know the size of always get drawn, just in case
+        if (index.setUnbounded(entry, bounds == null && drawable.isVisible())) visibleStale = true;
+
+        var changed = entry.bounds == null ? bounds != null : !entry.bounds.equals(bounds);
+        if (changed || entry.version != version) {
+            damage(damage, entry.bounds, bounds, drawable.isVisible());
+            if (layerDamage != null) {
+                // a new element's entry has no layer yet, but it has no bounds either
+                if (entry.layer != layer) damage(layerDamage.apply(entry.layer), entry.bounds, null, false);
+                damage(layerDamage.apply(layer), entry.bounds, bounds, drawable.isVisible());
+            }
+            if (bounds == null) entry.bounds = null;
+            else if (entry.bounds == null) entry.bounds = new Rectangle(bounds);
+            else entry.bounds.setBounds(bounds);
+            entry.version = version;
+            entry.layer = layer;
+        }
+        if (changed) visibleStale = true;
+    }
+
+    static void damage(DamageRegion damage, Rectangle was, Rectangle now, boolean visible) {
+        if (damage == null) return;
+        if (was != null) damage.add(was);
+        if (now != null) damage.add(now);
+        else if (visible) damage.addAll();
+    }
+
+    /**
+     * Run {@code consumer} on every element found by the last {@link #internalUpdate(Rectangle, DamageRegion)} that
+     * could be seen in {@code area}, in drawing order. Can be run for different areas at the same time.
+     *
+     * @param area the area to look in, in canvas coordinates
+     * @param consumer the code to run
+     */
+    public void foreachVisible(Rectangle area, DrawableConsumer consumer) {
+        var found = visible;
+        // anything smaller than the whole screen is quicker to look up in the index
+        if (!area.contains(viewport)) {
+            found = new ArrayList<>();
+            index.collect(area, found, true);
+        }
+        for (var i = 0; i < found.size(); i++) {
+            var entry = found.get(i);
+            var bounds = entry.bounds;
+            if (bounds != null && !(bounds.intersects(area) && bounds.intersects(viewport))) continue;
+            consumer.accept(entry.drawable);
+        }
+    }
+
+    /**
+     * Get all the elements whose bounding boxes touch {@code area}, as of the last frame.
+     * <pre>{@code
+     * // everything in the top left corner of the canvas
+     * List<Drawable<?>> found = InternalCanvas.elements.elementsIn(new Rectangle(0, 0, 100, 100));
+     * }</pre>
+     *
+     * @param area the area to look in, in canvas coordinates
+     * @return the elements, back to front
+     */
+    public List<Drawable<?>> elementsIn(Rectangle area) {
+        synchronized (indexSync) {
+            var out = index.query(area);
+            out.removeIf(e -> {
+                var bounds = e.getBounds();
+                return bounds == null || !bounds.intersects(area);
+            });
+            return out;
+        }
+    }
+
+    /**
+     * Get all the elements under {@code pos}, as of the last frame.
+     * {@link Interactable} elements are checked exactly, anything else just by its bounding box.
+     * <pre>{@code
+     * List<Drawable<?>> found = InternalCanvas.elements.elementsAt(new Point(100, 100));
+     * Drawable<?> top = found.isEmpty() ? null : found.get(found.size() - 1);
+     * }</pre>
+     *
+     * @param pos the position, in canvas coordinates
+     * @return the elements, back to front
+     */
+    public List<Drawable<?>> elementsAt(Point pos) {
+        var screenPos = new Point(pos);
+        synchronized (InternalCanvas.translationSync) {
+            if (InternalCanvas.translation != null)
+                screenPos.translate((int) InternalCanvas.translation.x, (int) InternalCanvas.translation.y);
+        }
+
+        var out = new ArrayList<Drawable<?>>();
+        for (var e : elementsIn(new Rectangle(pos.x, pos.y, 1, 1))) {
+            if (e instanceof Interactable && !((Interactable) e).intersects(screenPos)) continue;
+            out.add(e);
+        }
+        return out;
     }
 
+    /**
+     * @return the lowest layer that has anything on it, or 0 if there's nothing
+     */
     public int getMinLayer() {
-        return minLayer;
+        synchronized (structureSync) {
+            return layers.isEmpty() ? 0 : layers.firstKey();
+        }
     }
 
+    /**
+     * @return the highest layer that has anything on it, or 0 if there's nothing
+     */
     public int getMaxLayer() {
-        return maxLayer;
+        synchronized (structureSync) {
+            return layers.isEmpty() ? 0 : layers.lastKey();
+        }
     }
 
     public int size() {
-        return elements.size();
+        synchronized (structureSync) {
+            return layerOf.size();
+        }
     }
 
     public void add(Drawable<?> drawable) {
-        synchronized (drawableSync) {
-            elements.add(drawable);
+        synchronized (structureSync) {
+            if (layerOf.containsKey(drawable)) return;
+            var layer = drawable.getLayer();
+            layers.computeIfAbsent(layer, k -> new LinkedHashSet<>()).add(drawable);
+            layerOf.put(drawable, layer);
+            snapshot = null;
         }
-        dirty = true;
+        publish();
     }
 
+    /**
+     * Take an element off the canvas.
+     * It stays in the index used by {@link #elementsIn(Rectangle)} until the next frame is rendered.
+     *
+     * @param drawable the element
+     */
     public void remove(Drawable<?> drawable) {
-        synchronized (drawableSync) {
-            elements.remove(drawable);
+        synchronized (structureSync) {
+            var layer = layerOf.remove(drawable);
+            if (layer == null) return;
+            var bucket = layers.get(layer);
+            bucket.remove(drawable);
+            if (bucket.isEmpty()) layers.remove(layer);
+            snapshot = null;
+        }
+        publish();
+    }
+
+    /**
+     * Move an element to a different layer; it will be drawn after everything else already on that layer.
+     * If the element isn't on the canvas, this just changes its layer.
+     *
+     * @param drawable the element
+     * @param layer    the new layer
+     */
+    public void setLayer(Drawable<?> drawable, int layer) {
+        synchronized (structureSync) {
+            var old = layerOf.get(drawable);
+            drawable.internalSetLayer(layer);
+            if (old == null || old == layer) return;
+
+            remove(drawable);
+            add(drawable);
         }
-        dirty = true;
     }
 
     public interface DrawableConsumer {
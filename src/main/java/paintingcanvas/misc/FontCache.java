@@ -0,0 +1,122 @@
+package paintingcanvas.misc;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Shares {@link Font}s (and their {@link FontMetrics}) between everything that uses the same font, family, style and
+ * size. Scenes with hundreds of {@link paintingcanvas.drawable.Text Text} elements otherwise make a font (or two) for
+ * each one, and look up its metrics on every frame.
+ * </p>
+ * <p>
+ * Metrics are measured the way the canvas draws elements (with the image's default rendering hints, without a
+ * transform), so they can be used before anything is drawn and match what's drawn. Only the {@link #MAX_FONTS} fonts
+ * used most recently are kept, so text whose size is animated doesn't fill it up.
+ * </p>
+ * <pre>{@code
+ * Font font = FontCache.get("Comic Sans MS", Font.BOLD, 30);
+ * int width = FontCache.getFontMetrics(font).stringWidth("Hello World");
+ * }</pre>
+ */
+public class FontCache {
+    /**
+     * How many fonts (and how many fonts' metrics) are kept
+     */
+    public static final int MAX_FONTS = 256;
+    // least recently used first, both guarded by themselves
+    static final LinkedHashMap<Key, Font> fonts = lru();
+    static final LinkedHashMap<Font, FontMetrics> metrics = lru();
+    // only used to measure fonts
+    static Graphics2D measure;
+
+    private FontCache() {
+    }
+
+    /**
+     * Get the shared font with a family (or logical font name, like {@link Font#DIALOG}), style and size.
+     *
+     * @param name  the name of the font
+     * @param style the style of the font, like {@link Font#BOLD} or {@link Font#PLAIN}
+     * @param size  the size of the font in points
+     * @return The font
+     */
+    public static Font get(String name, int style, float size) {
+        return derive(new Font(name, style, 1), size);
+    }
+
+    /**
+     * Get the shared font that's the same as {@code font}, but with a different size. Fonts with a transform or
+     * extra layout attributes (like kerning) aren't shared, they're just derived.
+     * <pre>{@code
+     * Font big = FontCache.derive(text.font, 40);
+     * }</pre>
+     *
+     * @param font the font to resize
+     * @param size the new size of the font in points
+     * @return The font
+     */
+    public static Font derive(Font font, float size) {
+        if (font.isTransformed() || font.hasLayoutAttributes()) return font.deriveFont(size);
+        synchronized (fonts) {
+            return fonts.computeIfAbsent(new Key(font, size), k -> font.deriveFont(size));
+        }
+    }
+
+    /**
+     * The metrics of a font, measured the way the canvas draws text when it isn't scaled.
+     *
+     * @param font the font to measure
+     * @return The metrics of the font
+     */
+    public static FontMetrics getFontMetrics(Font font) {
+        synchronized (metrics) {
+            return metrics.computeIfAbsent(font, FontCache::measure);
+        }
+    }
+
+    static FontMetrics measure(Font font) {
+        // elements are drawn on the buffer's own graphics (the render lifecycles only get a copy), which has the
+        // default hints, so this needs them too
+        if (measure == null) measure = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        return measure.getFontMetrics(font);
+    }
+
+    // never serialized
+    @SuppressWarnings("serial")
+    static <K, V> LinkedHashMap<K, V> lru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > MAX_FONTS;
+            }
+        };
+    }
+
+    // a font (just its name and style) and the size to make it
+    static final class Key {
+        final Font font;
+        final float size;
+
+        Key(Font font, float size) {
+            this.font = font;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            var key = (Key) o;
+            return Float.compare(size, key.size) == 0 && font.getStyle() == key.font.getStyle()
+                    && font.getName().equals(key.font.getName());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(font.getName(), font.getStyle(), size);
+        }
+    }
+}
@@ -81,10 +81,12 @@ public enum Hue {
 
     public final String name;
     public final int hex;
+    private final Color color;
 
     Hue(String name, int hex) {
         this.name = name;
         this.hex = hex;
+        this.color = new Color(hex);
     }
 
     /**
@@ -99,7 +101,7 @@ public enum Hue {
         if (h == null) throw new IllegalArgumentException(
                 String.format("Color '%s' does not exist, valid colors are '%s'", name, NAME_LIST)
         );
-        return new Color(h.hex);
+        return h.color;
     }
 
     /**
@@ -108,6 +110,6 @@ public enum Hue {
      * @return The color
      */
     public Color getColor() {
-        return new Color(hex);
+        return color;
     }
 }
@@ -0,0 +1,186 @@
+package paintingcanvas.misc;
+
+import paintingcanvas.InternalCanvas;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>
+ * Loads images for {@link paintingcanvas.drawable.Image Image} elements on background threads, and keeps them around
+ * so that any number of elements made from the same file only read and decode it once (and share the pixels).
+ * </p>
+ * <p>
+ * Images are stored ready to draw: converted to the same kind of pixels as the canvas, and with a copy for each size
+ * they're shown at (see {@link paintingcanvas.drawable.Image#setScale(double, double)}), so drawing them is just
+ * copying pixels. When the images take up more than {@link paintingcanvas.canvas.CanvasOptions#imageCacheSize}, the
+ * ones that were used longest ago are dropped (elements that are using them keep them).
+ * </p>
+ * <pre>{@code
+ * // start reading the images while other things are set up
+ * ImageCache.load("sprites/ant.png");
+ * }</pre>
+ */
+public class ImageCache {
+    static final long DEFAULT_SIZE = 256L << 20;
+    // least recently used first
+    static final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    static final ExecutorService decoders = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            r -> {
+                var thread = new Thread(r, "PaintingCanvas Image Decoder");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+    static long bytes = 0;
+
+    private ImageCache() {
+    }
+
+    /**
+     * Start loading an image at its own size, if it isn't already loaded (or loading).
+     *
+     * @param path the path to the image file
+     * @return The image, once it's loaded. Completes exceptionally if it can't be read.
+     */
+    public static CompletableFuture<BufferedImage> load(String path) {
+        return load(path, 0, 0);
+    }
+
+    /**
+     * Start loading an image stretched to {@code width} by {@code height}, if it isn't already loaded (or loading).
+     *
+     * @param path   the path to the image file
+     * @param width  the width to stretch the image to, in pixels (or 0 for its own size)
+     * @param height the height to stretch the image to, in pixels (or 0 for its own size)
+     * @return The image, once it's loaded. Completes exceptionally if it can't be read.
+     */
+    public static CompletableFuture<BufferedImage> load(String path, int width, int height) {
+        var key = new Key(new File(path).getAbsoluteFile().toPath().normalize().toString(), width, height);
+        synchronized (entries) {
+            var entry = entries.get(key);
+            if (entry != null) return entry.image;
+
+            var image = width == 0 && height == 0
+                    ? CompletableFuture.supplyAsync(() -> decode(key.path), decoders)
+                    : load(path).thenApplyAsync(original -> scale(original, width, height), decoders);
+            var created = new Entry(image);
+            entries.put(key, created);
+            image.whenComplete((loaded, error) -> loaded(key, created, loaded));
+            return image;
+        }
+    }
+
+    /**
+     * Forget every image, so they're read from their files again next time.
+     */
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * @return How many bytes the loaded images take up
+     */
+    public static long getSize() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    static void loaded(Key key, Entry entry, BufferedImage image) {
+        synchronized (entries) {
+            if (entries.get(key) != entry) return;
+            // try again next time if it couldn't be read
+            if (image == null) {
+                entries.remove(key);
+                return;
+            }
+
+            entry.bytes = 4L * image.getWidth() * image.getHeight();
+            bytes += entry.bytes;
+            var max = InternalCanvas.options == null ? DEFAULT_SIZE : InternalCanvas.options.imageCacheSize;
+            var iter = entries.values().iterator();
+            while (bytes > max && iter.hasNext()) {
+                var next = iter.next();
+                // still loading
+                if (next.bytes == 0) continue;
+                bytes -= next.bytes;
+                iter.remove();
+            }
+        }
+    }
+
+    static BufferedImage decode(String path) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new File(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (image == null) throw new UncheckedIOException(new IOException("Unsupported image format: " + path));
+
+        // the same pixels as the canvas, or without alpha if there isn't any, so drawing never has to convert them
+        var type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (image.getType() == type) return image;
+        return scale(image, image.getWidth(), image.getHeight(), type);
+    }
+
+    static BufferedImage scale(BufferedImage image, int width, int height) {
+        return scale(image, width, height, image.getType());
+    }
+
+    static BufferedImage scale(BufferedImage image, int width, int height, int type) {
+        var scaled = new BufferedImage(width, height, type);
+        var g = scaled.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    static final class Key {
+        final String path;
+        final int width, height;
+
+        Key(String path, int width, int height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            var key = (Key) o;
+            return width == key.width && height == key.height && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height);
+        }
+    }
+
+    static final class Entry {
+        final CompletableFuture<BufferedImage> image;
+        // 0 until it's loaded
+        long bytes;
+
+        Entry(CompletableFuture<BufferedImage> image) {
+            this.image = image;
+        }
+    }
+}
@@ -11,6 +11,24 @@ public class Misc {
         return val;
     }
 
+    /**
+     * Like {@link #clamp(Number, Number, Number)}, without boxing the numbers
+     */
+    public static int clamp(int min, int val, int max) {
+        if (val > max) return max;
+        if (val < min) return min;
+        return val;
+    }
+
+    /**
+     * Like {@link #clamp(Number, Number, Number)}, without boxing the numbers
+     */
+    public static double clamp(double min, double val, double max) {
+        if (val > max) return max;
+        if (val < min) return min;
+        return val;
+    }
+
     public static <N extends Number> boolean equality(N a, N b, N error) {
         var err = error.doubleValue() / 2;
         return Math.max(a.doubleValue(), b.doubleValue()) - err <= Math.min(a.doubleValue(), b.doubleValue()) + err;
@@ -27,7 +45,7 @@ public class Misc {
         try {
             // prepend the "#" if necessary, and try to decode it as a hex code
             String colorName = name.startsWith("#") ? name : ("#" + name);
-            return Color.decode(colorName);
+            return ColorCache.get(0xff000000 | Integer.decode(colorName) & 0xffffff);
         } catch (Exception e) {
             // otherwise, try to decode it as a Hue
             // this function will also throw again if it isn't a valid Hue
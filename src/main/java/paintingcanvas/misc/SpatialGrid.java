@@ -0,0 +1,270 @@
+package paintingcanvas.misc;
+
+import paintingcanvas.drawable.Drawable;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * <p>
+ * A uniform grid laid over the canvas, so the {@link ElementContainer} can find the elements in an area without
+ * checking every single one.
+ * </p>
+ * <p>
+ * Each element is put in every cell that its bounding box touches, and only gets moved around when it ends up
+ * touching different cells. Elements that would cover a huge number of cells are kept in a separate list that's
+ * always checked instead.
+ * </p>
+ * <p>
+ * Elements whose bounds aren't known are kept track of too, they just aren't in any cells. This way the grid always
+ * knows where each element was last time, which is what {@link DamageRegion damage} is worked out from.
+ * </p>
+ * <p>
+ * The cells hold each element's entry rather than the element, so the results can be put in drawing order without
+ * looking anything up.
+ * </p>
+ */
+public class SpatialGrid {
+    static final int MAX_CELLS = 256;
+    static final Comparator<Entry> ORDER = Comparator.comparingInt(e -> e.order);
+    final int cellSize;
+    final HashMap<Long, List<Entry>> cells = new HashMap<>();
+    final IdentityHashMap<Drawable<?>, Entry> entries = new IdentityHashMap<>();
+    final List<Entry> oversized = new ArrayList<>();
+    // elements whose bounds aren't known, but should be drawn anyway, see setUnbounded
+    final List<Entry> unbounded = new ArrayList<>();
+    int pass = 0;
+
+    /**
+     * @param cellSize the width and height of each cell
+     */
+    public SpatialGrid(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    static long key(int cx, int cy) {
+        // Long's hash is just the two halves xored together, which would put every cell on a diagonal in the same
+        // bucket, so they're mixed up first (multiplying by an odd number never maps two keys to the same one)
+        return (((long) cx << 32) | (cy & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+    }
+
+    int cell(int pos) {
+        return Math.floorDiv(pos, cellSize);
+    }
+
+    /**
+     * Add an element to the grid, or move it if it's already in there.
+     *
+     * @param drawable the element
+     * @param bounds   its bounding box, or {@code null} if it isn't known (it won't be found by {@link #query(Rectangle)})
+     * @param order    where it is in the drawing order, used to sort the results of {@link #query(Rectangle)}
+     */
+    public void update(Drawable<?> drawable, Rectangle bounds, int order) {
+        place(drawable, bounds, order);
+    }
+
+    /**
+     * Like {@link #update(Drawable, Rectangle, int)}
+     *
+     * @return the element's entry, which still has the bounds it had before this
+     */
+    Entry place(Drawable<?> drawable, Rectangle bounds, int order) {
+        var entry = entry(drawable, order);
+        move(entry, bounds);
+        return entry;
+    }
+
+    /**
+     * Get an element's entry, adding one that isn't in any cells yet if it doesn't have one, and give it its place in
+     * the drawing order for this pass
+     */
+    Entry entry(Drawable<?> drawable, int order) {
+        var entry = entries.get(drawable);
+        if (entry == null) {
+            entry = new Entry(drawable);
+            entries.put(drawable, entry);
+        }
+        entry.order = order;
+        entry.pass = pass;
+        return entry;
+    }
+
+    /**
+     * Put an entry in the cells that {@code bounds} touches, or in none if it's {@code null}
+     */
+    void move(Entry entry, Rectangle bounds) {
+        if (bounds == null) {
+            unlink(entry);
+            return;
+        }
+
+        var x0 = cell(bounds.x);
+        var y0 = cell(bounds.y);
+        var x1 = cell(bounds.x + bounds.width);
+        var y1 = cell(bounds.y + bounds.height);
+        if (entry.placed && entry.x0 == x0 && entry.y0 == y0 && entry.x1 == x1 && entry.y1 == y1) return;
+        unlink(entry);
+
+        entry.placed = true;
+        entry.x0 = x0;
+        entry.y0 = y0;
+        entry.x1 = x1;
+        entry.y1 = y1;
+        entry.oversized = (long) (x1 - x0 + 1) * (y1 - y0 + 1) > MAX_CELLS;
+
+        if (entry.oversized) {
+            oversized.add(entry);
+            return;
+        }
+        for (var cx = x0; cx <= x1; cx++)
+            for (var cy = y0; cy <= y1; cy++)
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(entry);
+    }
+
+    /**
+     * Have {@link #collect(Rectangle, List)} always include an element whose bounds aren't known
+     *
+     * @return whether that changed anything
+     */
+    boolean setUnbounded(Entry entry, boolean unbounded) {
+        if (entry.unbounded == unbounded) return false;
+        entry.unbounded = unbounded;
+        if (unbounded) this.unbounded.add(entry);
+        else this.unbounded.remove(entry);
+        return true;
+    }
+
+    /**
+     * Take an element out of the grid
+     *
+     * @param drawable the element
+     */
+    public void remove(Drawable<?> drawable) {
+        var entry = entries.remove(drawable);
+        if (entry != null) {
+            unlink(entry);
+            setUnbounded(entry, false);
+        }
+    }
+
+    /**
+     * Start a new pass over the elements; see {@link #removeStale(DamageRegion)}.
+     */
+    public void nextPass() {
+        pass++;
+    }
+
+    /**
+     * Take out every element that hasn't been {@link #update updated} since the last {@link #nextPass()}
+     *
+     * @param damage if not {@code null}, where the elements that were taken out used to be is added to it
+     */
+    public void removeStale(DamageRegion damage) {
+        removeStale(damage, null);
+    }
+
+    /**
+     * Like {@link #removeStale(DamageRegion)}, also adding where the elements were to the damage of their layer
+     *
+     * @param layerDamage gives the damage for a layer, or {@code null} if that layer doesn't keep track of it
+     */
+    void removeStale(DamageRegion damage, IntFunction<DamageRegion> layerDamage) {
+        var it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            var entry = e.getValue();
+            if (entry.pass == pass) continue;
+            if (entry.bounds != null) {
+                if (damage != null) damage.add(entry.bounds);
+                var layer = layerDamage == null ? null : layerDamage.apply(entry.layer);
+                if (layer != null) layer.add(entry.bounds);
+            }
+            unlink(entry);
+            setUnbounded(entry, false);
+            it.remove();
+        }
+    }
+
+    void unlink(Entry entry) {
+        if (!entry.placed) return;
+        entry.placed = false;
+        if (entry.oversized) {
+            oversized.remove(entry);
+            return;
+        }
+        for (var cx = entry.x0; cx <= entry.x1; cx++)
+            for (var cy = entry.y0; cy <= entry.y1; cy++) {
+                var key = key(cx, cy);
+                var cell = cells.get(key);
+                cell.remove(entry);
+                if (cell.isEmpty()) cells.remove(key);
+            }
+    }
+
+    /**
+     * Find the elements whose bounding boxes might touch {@code area}, in drawing order (back to front).
+     *
+     * @param area the area to look in
+     * @return the elements found
+     */
+    public List<Drawable<?>> query(Rectangle area) {
+        var found = new ArrayList<Entry>();
+        collect(area, found, false);
+        var out = new ArrayList<Drawable<?>>(found.size());
+        for (var entry : found) out.add(entry.drawable);
+        return out;
+    }
+
+    /**
+     * Like {@link #query(Rectangle)}, putting the entries in {@code out} (which should be empty). Only reads the grid,
+     * so it can be run from more than one thread at once as long as nothing is being moved.
+     *
+     * @param unbounded whether to include the elements given to {@link #setUnbounded(Entry, boolean)}
+     */
+    void collect(Rectangle area, List<Entry> out, boolean unbounded) {
+        var x0 = cell(area.x);
+        var y0 = cell(area.y);
+        var x1 = cell(area.x + area.width);
+        var y1 = cell(area.y + area.height);
+
+        for (var cx = x0; cx <= x1; cx++)
+            for (var cy = y0; cy <= y1; cy++) {
+                var cell = cells.get(key(cx, cy));
+                if (cell == null) continue;
+                for (var i = 0; i < cell.size(); i++) {
+                    // elements in more than one cell only get added from the first cell they share with the area
+                    var entry = cell.get(i);
+                    if (Math.max(entry.x0, x0) == cx && Math.max(entry.y0, y0) == cy) out.add(entry);
+                }
+            }
+        for (var i = 0; i < oversized.size(); i++) out.add(oversized.get(i));
+        if (unbounded) for (var i = 0; i < this.unbounded.size(); i++) out.add(this.unbounded.get(i));
+
+        out.sort(ORDER);
+    }
+
+    static class Entry {
+        final Drawable<?> drawable;
+        int x0, y0, x1, y1;
+        int order;
+        int pass;
+        boolean placed;
+        boolean oversized;
+        // what the element looked like last time, kept up to date by the ElementContainer
+        Rectangle bounds;
+        int version = -1;
+        int layer;
+        // whether the ElementContainer has measured it yet
+        boolean measured;
+        boolean unbounded;
+
+        Entry(Drawable<?> drawable) {
+            this.drawable = drawable;
+        }
+    }
+}
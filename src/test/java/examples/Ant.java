@@ -17,6 +17,8 @@ public class Ant {
 //        var rec = new Recorder().attach().record(Path.of("rec"), "png");
         new FrameCounter().line(() -> String.format("Step: %d", tick)).attach();
         var field = new Field(canvas.getWidth() / PIXEL_SIZE + 1, canvas.getHeight() / PIXEL_SIZE + 1);
+        // only a tile or two changes each step, so don't draw all of them every frame
+        canvas.setLayerCached(-1, true);
 
         while (true) {
             field.step();
@@ -74,7 +76,7 @@ public class Ant {
 
             for (int i = 0; i < x; i++)
                 for (int j = 0; j < y; j++)
-                    tiles[j * x + i] = new Rectangle(i * PIXEL_SIZE + PIXEL_SIZE / 2, j * PIXEL_SIZE + PIXEL_SIZE / 2, PIXEL_SIZE, PIXEL_SIZE).setColor(0).setOutline(1, new Color(0x101010));
+                    tiles[j * x + i] = new Rectangle(i * PIXEL_SIZE + PIXEL_SIZE / 2, j * PIXEL_SIZE + PIXEL_SIZE / 2, PIXEL_SIZE, PIXEL_SIZE).setColor(0).setOutline(1, new Color(0x101010)).setLayer(-1);
             this.ant = new Circle(antPos.x * PIXEL_SIZE + PIXEL_SIZE / 2, antPos.y * PIXEL_SIZE + PIXEL_SIZE / 2, PIXEL_SIZE / 2).setColor(0xaa0000);
         }
 
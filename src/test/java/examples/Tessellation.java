@@ -211,8 +211,9 @@ class Tile {
 
         var p1 = new Point(-size / 2, -height);
 
-        path = new Path().setPos(x, y);
-        outline = new Path().setPos(x, y);
+        // the tiles are mostly moved around, so only draw their curves again when they change color
+        path = new Path().setPos(x, y).setSpriteCached(true);
+        outline = new Path().setPos(x, y).setSpriteCached(true);
         path.cursorTo(p1.x, p1.y);
         outline.cursorTo(p1.x, p1.y);
 
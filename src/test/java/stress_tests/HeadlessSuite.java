@@ -0,0 +1,358 @@
+package stress_tests;
+
+import paintingcanvas.InternalCanvas;
+import paintingcanvas.animation.Animation;
+import paintingcanvas.animation.Easing;
+import paintingcanvas.canvas.Canvas;
+import paintingcanvas.canvas.CanvasOptions;
+import paintingcanvas.drawable.*;
+import paintingcanvas.drawable.Image;
+import paintingcanvas.drawable.Polygon;
+import paintingcanvas.drawable.Rectangle;
+import paintingcanvas.misc.Anchor;
+import paintingcanvas.misc.TimeUnit;
+import paintingcanvas.misc.Tuple;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>
+ * Headless versions of the other stress tests, that run for a fixed number of frames with scripted input instead of
+ * forever in a window. Every frame is timed, along with how much it allocated and how many times the GC ran, and the
+ * suite fails if the p99 frame time or the allocations per frame go over the budgets in {@code budgets.properties}.
+ * </p>
+ * <pre>
+ * gradle stressTest
+ * gradle stressTest -PstressArgs="--frames 1200 scale animation"
+ * gradle stressTest -Dbudgets=my-budgets.properties
+ * </pre>
+ * <p>
+ * Each scenario runs in its own JVM, because there can only be one canvas per JVM.
+ * The {@code scale} scenario's size can be changed with {@code -Dscale.elements=50000}.
+ * </p>
+ */
+public class HeadlessSuite {
+    static final int WIDTH = 900;
+    static final int HEIGHT = 600;
+    static final int WARMUP_FRAMES = 120;
+    static final String BUDGETS = "src/test/java/stress_tests/budgets.properties";
+    static final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+
+    static {
+        scenarios.put("animation", HeadlessSuite::animation);
+        scenarios.put("sync", HeadlessSuite::sync);
+        scenarios.put("interaction", HeadlessSuite::interaction);
+        scenarios.put("rotate", HeadlessSuite::rotate);
+        scenarios.put("anchor", HeadlessSuite::anchor);
+        scenarios.put("scale", HeadlessSuite::scale);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var frames = 600;
+        var names = new ArrayList<String>();
+        String run = null;
+        for (var i = 0; i < args.length; i++) {
+            if (args[i].equals("--frames")) frames = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--run")) run = args[++i];
+            else names.add(args[i]);
+        }
+
+        if (run != null) {
+            runScenario(run, frames);
+            System.exit(0);
+        }
+
+        if (names.isEmpty()) names.addAll(scenarios.keySet());
+        var budgets = new Properties();
+        try (var reader = new FileReader(System.getProperty("budgets", BUDGETS))) {
+            budgets.load(reader);
+        }
+
+        var failures = new ArrayList<String>();
+        System.out.printf("%-12s %7s %9s %9s %9s %12s %5s %8s%n", "scenario", "frames", "p50 ms", "p99 ms", "max ms", "bytes/frame", "gcs", "gc ms");
+        for (var name : names) {
+            if (!scenarios.containsKey(name)) throw new IllegalArgumentException("No scenario called " + name);
+            var result = fork(name, frames);
+            if (result == null) {
+                failures.add(name + ": crashed");
+                continue;
+            }
+            System.out.printf("%-12s %7d %9.2f %9.2f %9.2f %12d %5d %8d%n", name, result.frames, result.p50 / 1e6, result.p99 / 1e6, result.max / 1e6, result.bytesPerFrame, result.gcs, result.gcMillis);
+
+            var p99Budget = budgets.getProperty(name + ".p99Ms");
+            if (p99Budget != null && result.p99 / 1e6 > Double.parseDouble(p99Budget))
+                failures.add(String.format("%s: p99 frame time %.2fms is over the budget of %sms", name, result.p99 / 1e6, p99Budget));
+            var bytesBudget = budgets.getProperty(name + ".bytesPerFrame");
+            if (bytesBudget != null && result.bytesPerFrame > Long.parseLong(bytesBudget))
+                failures.add(String.format("%s: %d bytes allocated per frame is over the budget of %s", name, result.bytesPerFrame, bytesBudget));
+        }
+
+        if (failures.isEmpty()) return;
+        System.err.println();
+        failures.forEach(System.err::println);
+        System.exit(1);
+    }
+
+    /**
+     * Run a scenario in a new JVM with the same classpath, and read back its results
+     */
+    static Result fork(String name, int frames) throws IOException, InterruptedException {
+        var java = ProcessHandle.current().info().command().orElse("java");
+        var command = new ArrayList<>(List.of(java, "-Xms512m", "-Xmx512m", "-Djava.awt.headless=true"));
+        for (var key : System.getProperties().stringPropertyNames())
+            if (key.startsWith("scale.")) command.add("-D" + key + "=" + System.getProperty(key));
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), HeadlessSuite.class.getName(), "--run", name, "--frames", String.valueOf(frames)));
+
+        var process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        Result result = null;
+        try (var out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith("RESULT ")) result = Result.parse(line);
+                else System.out.println(line);
+            }
+        }
+        return process.waitFor() == 0 ? result : null;
+    }
+
+    static void runScenario(String name, int frames) {
+        var canvas = new Canvas(WIDTH, HEIGHT, name, new CanvasOptions().headless(true).manualFrames(true));
+        var script = scenarios.get(name).setup(canvas, new Random(42));
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var times = new long[frames];
+        var allocated = 0L;
+        var gcs = 0L;
+        var gcMillis = 0L;
+        for (var i = 0; i < WARMUP_FRAMES + frames; i++) {
+            if (i == WARMUP_FRAMES) {
+                gcs = -gcCount();
+                gcMillis = -gcTime();
+            }
+            script.accept(i);
+
+            var bytes = threads.getCurrentThreadAllocatedBytes();
+            var start = System.nanoTime();
+            InternalCanvas.headless.nextFrame();
+            var time = System.nanoTime() - start;
+            bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            if (i < WARMUP_FRAMES) continue;
+            times[i - WARMUP_FRAMES] = time;
+            allocated += bytes;
+        }
+        gcs += gcCount();
+        gcMillis += gcTime();
+
+        Arrays.sort(times);
+        System.out.printf("RESULT %d %d %d %d %d %d %d%n", frames, percentile(times, 0.5), percentile(times, 0.99), times[frames - 1], allocated / frames, gcs, gcMillis);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(e -> Math.max(0, e.getCollectionCount())).sum();
+    }
+
+    static long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(e -> Math.max(0, e.getCollectionTime())).sum();
+    }
+
+    static Color randomColor(Random random) {
+        return new Color(random.nextFloat(), random.nextFloat(), random.nextFloat());
+    }
+
+    // == scenarios ==
+
+    /**
+     * {@link AnimationTest}: a 50x50 grid of squares that get shuffled around every four seconds
+     */
+    static IntConsumer animation(Canvas canvas, Random random) {
+        var size = 10;
+        var side = 50;
+        var pad = size / 2;
+        var rects = new ArrayList<Rectangle>();
+        var home = new IdentityHashMap<Rectangle, Point>();
+        for (var x = 0; x < side; x++) {
+            for (var y = 0; y < side; y++) {
+                var rect = new Rectangle(pad + size * x, pad + size * y, size, size);
+                rect.setColor(Color.getHSBColor((float) (Math.pow(x * y, 0.8) / Math.pow(side * side, 0.8)), 1, 1));
+                rects.add(rect);
+                home.put(rect, new Point(pad + size * x, pad + size * y));
+            }
+        }
+
+        return frame -> {
+            if (frame % 120 != 0) return;
+            var shuffle = frame / 120 % 3 != 0;
+            if (shuffle) Collections.shuffle(rects, random);
+            for (var i = 0; i < rects.size(); i++) {
+                var rect = rects.get(i);
+                var to = shuffle ? new Point(pad + size * (i % side), pad + size * (i / side)) : home.get(rect);
+                rect.animate().with(Animation.moveTo(to.x, to.y).easing(Easing.easeInOut(2)), 90, TimeUnit.Frames);
+            }
+        };
+    }
+
+    /**
+     * {@link SyncTest}: polygons jiggling back and forth while circles are added and erased every frame
+     */
+    static IntConsumer sync(Canvas canvas, Random random) {
+        var shapes = new Polygon[10];
+        for (var i = 0; i < shapes.length; i++) {
+            shapes[i] = new Polygon(0, 200).setColor(randomColor(random));
+            for (var j = 0; j < 5; j++) shapes[i].point(random.nextInt(200) - 100, random.nextInt(200) - 100);
+        }
+        var temps = new Circle[10];
+
+        return frame -> {
+            for (var temp : temps) if (temp != null) temp.erase();
+            for (var i = 0; i < temps.length; i++)
+                temps[i] = new Circle(random.nextInt(WIDTH), random.nextInt(HEIGHT), 10, randomColor(random));
+            var dx = frame % 2 == 0 ? 10 : -10;
+            canvas.atomic(() -> {
+                for (var shape : shapes) shape.move(dx, 0);
+            });
+        };
+    }
+
+    /**
+     * {@link InteractionTest}: the mouse sweeps over the shapes, clicking every so often, while the arrow keys move
+     * them around
+     */
+    static IntConsumer interaction(Canvas canvas, Random random) {
+        var shapes = List.<DrawableBase<?>>of(
+                new Rectangle(0, 0, 60, 100, randomColor(random)),
+                new Ellipse(0, 0, 100, 200, randomColor(random)),
+                new Circle(0, 0, 30, randomColor(random)),
+                new Triangle(0, 0, 100, 150, randomColor(random))
+        );
+        for (var i = 0; i < shapes.size(); i++) shapes.get(i).setPos(100 * i + 100, 100);
+        var source = new JPanel();
+        var keys = new int[]{KeyEvent.VK_UP, KeyEvent.VK_RIGHT, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT};
+
+        return frame -> {
+            // the mouse goes round in a circle over the shapes
+            var mouse = new Point(300 + (int) (200 * Math.cos(frame / 20.0)), 150 + (int) (100 * Math.sin(frame / 20.0)));
+            InternalCanvas.mousePosition = mouse;
+            if (frame % 45 == 0) {
+                var event = new MouseEvent(source, MouseEvent.MOUSE_CLICKED, 0, 0, mouse.x, mouse.y, 1, false, MouseEvent.BUTTON1);
+                InternalCanvas.mouseClickEvents.add(new Tuple<>(event, 2));
+            }
+            // hold each arrow key for a second in turn
+            synchronized (InternalCanvas.keysHeld) {
+                InternalCanvas.keysHeld.clear();
+                InternalCanvas.keysHeld.add(keys[frame / 30 % keys.length]);
+            }
+
+            if (canvas.keyDown(KeyEvent.VK_UP)) shapes.forEach(d -> d.moveVertical(-1));
+            if (canvas.keyDown(KeyEvent.VK_DOWN)) shapes.forEach(d -> d.moveVertical(1));
+            if (canvas.keyDown(KeyEvent.VK_LEFT)) shapes.forEach(d -> d.moveHorizontal(-1));
+            if (canvas.keyDown(KeyEvent.VK_RIGHT)) shapes.forEach(d -> d.moveHorizontal(1));
+            for (var shape : shapes) {
+                var interactable = (Interactable) shape;
+                if (interactable.hovered()) shape.setColor(randomColor(random));
+                if (interactable.clicked()) {
+                    shape.setPos(random.nextInt(WIDTH - 100) + 50, random.nextInt(HEIGHT - 100) + 50);
+                    shape.setRotation(random.nextInt(360));
+                }
+            }
+        };
+    }
+
+    /**
+     * {@link RotateTest}: triangles turning 20 degrees every second
+     */
+    static IntConsumer rotate(Canvas canvas, Random random) {
+        var shapes = new Triangle[10];
+        for (var i = 0; i < shapes.length; i++)
+            shapes[i] = new Triangle(i * 200, HEIGHT / 2, 100, 200, randomColor(random));
+
+        return frame -> {
+            if (frame % 30 == 0) for (var shape : shapes) shape.rotate(20);
+        };
+    }
+
+    /**
+     * {@link AnchorTest}: shapes, text and an image with different anchors, turning 15 degrees twice a second
+     */
+    static IntConsumer anchor(Canvas canvas, Random random) {
+        var shapes = List.<DrawableBase<?>>of(
+                new Rectangle(0, 0, 50, 60, randomColor(random)).setAnchor(Anchor.BOTTOM_LEFT),
+                new Text(0, 0, "top_center", randomColor(random)).setFontSize(20.0).setAnchor(Anchor.TOP_CENTER),
+                new Text(0, 0, "center_left g", randomColor(random)).setFontSize(20.0).setAnchor(Anchor.CENTER_LEFT),
+                new Text(0, 0, "bottom_right", randomColor(random)).setFontSize(20.0).setAnchor(Anchor.BOTTOM_RIGHT),
+                new Triangle(0, 0, 100, 50, randomColor(random)).setAnchor(Anchor.TOP_CENTER),
+                new Ellipse(0, 0, 100, 50, randomColor(random)).setAnchor(Anchor.TOP_CENTER),
+                new Image(0, 0, "src/test/java/examples/flop.jpg").setAnchor(Anchor.TOP_CENTER).setScale(0.2, 0.2)
+        );
+        for (var i = 0; i < shapes.size(); i++) {
+            var x = 100 * i + 50;
+            shapes.get(i).setPos(x, 100);
+            new Circle(x, 100, 2, Color.BLACK);
+        }
+
+        return frame -> {
+            if (frame % 15 == 0) for (var shape : shapes) shape.rotate(15);
+        };
+    }
+
+    /**
+     * Lots of small circles (20000 by default, see {@code -Dscale.elements}), all of them moving and changing color
+     */
+    static IntConsumer scale(Canvas canvas, Random random) {
+        var count = Integer.getInteger("scale.elements", 20000);
+        var circles = new Circle[count];
+        for (var i = 0; i < count; i++)
+            circles[i] = new Circle(random.nextInt(WIDTH), random.nextInt(HEIGHT), 2 + random.nextInt(6), randomColor(random));
+
+        return frame -> {
+            if (frame % 60 != 0) return;
+            for (var circle : circles) {
+                circle.animate()
+                        .with(Animation.moveTo(random.nextInt(WIDTH), random.nextInt(HEIGHT)), 60, TimeUnit.Frames)
+                        .with(Animation.colorTo(random.nextInt(0x1000000)), 60, TimeUnit.Frames);
+            }
+        };
+    }
+
+    interface Scenario {
+        /**
+         * Set up the scene
+         *
+         * @return what to do before each frame, given the frame number
+         */
+        IntConsumer setup(Canvas canvas, Random random);
+    }
+
+    static class Result {
+        int frames;
+        long p50, p99, max, bytesPerFrame, gcs, gcMillis;
+
+        static Result parse(String line) {
+            var parts = line.split(" ");
+            var out = new Result();
+            out.frames = Integer.parseInt(parts[1]);
+            out.p50 = Long.parseLong(parts[2]);
+            out.p99 = Long.parseLong(parts[3]);
+            out.max = Long.parseLong(parts[4]);
+            out.bytesPerFrame = Long.parseLong(parts[5]);
+            out.gcs = Long.parseLong(parts[6]);
+            out.gcMillis = Long.parseLong(parts[7]);
+            return out;
+        }
+    }
+}
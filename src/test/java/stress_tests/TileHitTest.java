@@ -0,0 +1,123 @@
+package stress_tests;
+
+import paintingcanvas.InternalCanvas;
+import paintingcanvas.canvas.Canvas;
+import paintingcanvas.canvas.CanvasOptions;
+import paintingcanvas.drawable.*;
+import paintingcanvas.drawable.Rectangle;
+
+import java.awt.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Checks that hit-testing ({@link Interactable#intersects(Point)} and {@link Interactable#hovered()}) gives the same
+ * answers when frames are drawn in tiles on lots of threads ({@link CanvasOptions#renderThreads}) as on one.
+ * The shapes sit across the edges of the tiles, and are moved and turned between the checks.
+ * </p>
+ * <pre>
+ * gradle tileHitTest
+ * </pre>
+ * <p>
+ * Like {@link HeadlessSuite}, each thread count runs in its own JVM, and their answers are compared.
+ * </p>
+ */
+public class TileHitTest {
+    static final int WIDTH = 900;
+    static final int HEIGHT = 600;
+    static final int THREADS = 4;
+    static final int STEP = 3;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--run")) {
+            run(Integer.parseInt(args[1]));
+            System.exit(0);
+        }
+
+        var one = fork(1);
+        var many = fork(THREADS);
+        if (one == null || many == null) {
+            System.err.println("crashed");
+            System.exit(1);
+        }
+
+        var failures = new ArrayList<String>();
+        // make sure there's something to compare, so an element that's never hit doesn't pass
+        if (!one.contains("intersects 0 600,400 true")) failures.add("1 thread: the rectangle at 600,400 isn't hit there");
+        if (one.size() != many.size()) failures.add(String.format("%d answers with 1 thread, %d with %d", one.size(), many.size(), THREADS));
+        for (var i = 0; i < Math.min(one.size(), many.size()); i++) {
+            if (!one.get(i).equals(many.get(i)))
+                failures.add(String.format("1 thread: %s, %d threads: %s", one.get(i), THREADS, many.get(i)));
+        }
+        System.out.printf("%d answers compared, %d different%n", one.size(), failures.size());
+
+        if (failures.isEmpty()) return;
+        System.err.println();
+        failures.stream().limit(20).forEach(System.err::println);
+        System.exit(1);
+    }
+
+    /**
+     * Run the checks in a new JVM with the same classpath, and read back its answers
+     */
+    static List<String> fork(int threads) throws IOException, InterruptedException {
+        var java = ProcessHandle.current().info().command().orElse("java");
+        var command = List.of(java, "-Djava.awt.headless=true", "-cp", System.getProperty("java.class.path"),
+                TileHitTest.class.getName(), "--run", String.valueOf(threads));
+
+        var process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        var answers = new ArrayList<String>();
+        try (var out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) answers.add(line);
+        }
+        return process.waitFor() == 0 ? answers : null;
+    }
+
+    static void run(int threads) {
+        new Canvas(WIDTH, HEIGHT, "hits", new CanvasOptions().headless(true).manualFrames(true).renderThreads(threads));
+        // the tiles are 256px, so these all cross at least one edge
+        var shapes = List.<DrawableBase<?>>of(
+                new Rectangle(600, 400, 60, 100, Color.RED),
+                new Ellipse(256, 256, 100, 200, Color.GREEN),
+                new Circle(512, 256, 30, Color.BLUE),
+                new Triangle(768, 512, 100, 150, Color.ORANGE).setRotation(30)
+        );
+
+        for (var round = 0; round < 3; round++) {
+            InternalCanvas.headless.nextFrame();
+            for (var i = 0; i < shapes.size(); i++) {
+                var shape = shapes.get(i);
+                var interactable = (Interactable) shape;
+                var x = shape.getX();
+                var y = shape.getY();
+                System.out.printf("intersects %d %d,%d %b%n", i, x, y, interactable.intersects(new Point(x, y)));
+
+                // every point around it, hashed so it's one line
+                var hash = 0L;
+                var hits = 0;
+                for (var px = x - 150; px <= x + 150; px += STEP) {
+                    for (var py = y - 150; py <= y + 150; py += STEP) {
+                        if (!interactable.intersects(new Point(px, py))) continue;
+                        hash = hash * 31 + px * 7919L + py;
+                        hits++;
+                    }
+                }
+                System.out.printf("area %d %d %d%n", i, hits, hash);
+
+                InternalCanvas.mousePosition = new Point(x, y);
+                System.out.printf("hovered %d %b%n", i, interactable.hovered());
+            }
+
+            // move them to somewhere else across the tiles for the next round
+            for (var shape : shapes) {
+                shape.move(37, -53);
+                shape.rotate(25);
+            }
+        }
+    }
+}